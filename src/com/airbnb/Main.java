@@ -11,6 +11,7 @@
 package com.airbnb;
 
 import com.airbnb.utils.SceneManager;
+import com.airbnb.repository.Repositories;
 import com.airbnb.services.FileService;
 import javafx.application.Application;
 import javafx.stage.Stage;
@@ -26,6 +27,9 @@ public class Main extends Application {
         // Initialize data directory
         FileService.initializeDataDirectory();
         
+        // Load data files into memory once
+        Repositories.loadAll();
+        
         // Set up scene manager
         SceneManager.setPrimaryStage(primaryStage);
         
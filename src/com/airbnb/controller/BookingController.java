@@ -6,6 +6,7 @@ import com.airbnb.services.BookingService;
 import com.airbnb.services.PropertyService;
 import com.airbnb.utils.SceneManager;
 import com.airbnb.utils.SessionManager;
+import com.airbnb.utils.ValidationUtil;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 import javafx.fxml.FXML;
@@ -133,6 +134,12 @@ public class BookingController implements Initializable {
             return;
         }
         
+        if (!ValidationUtil.isValidStay(checkIn, checkOut)) {
+            showStatus("Stays are limited to " + ValidationUtil.MAX_STAY_NIGHTS + " nights, ending within "
+                       + ValidationUtil.MAX_YEARS_AHEAD + " years", false);
+            return;
+        }
+        
         String guestId = SessionManager.getCurrentUserId();
         if (BookingService.createBooking(selectedProperty.getId(), guestId, checkIn, checkOut)) {
             showStatus("Booking confirmed successfully!", true);
@@ -1,8 +1,11 @@
 package com.airbnb.controller;
 
 import com.airbnb.models.Property;
+import com.airbnb.models.PropertyPage;
+import com.airbnb.models.PropertyQuery;
 import com.airbnb.services.PropertyService;
 import com.airbnb.utils.SceneManager;
+import javafx.application.Platform;
 import javafx.fxml.FXML;
 import javafx.fxml.Initializable;
 import javafx.geometry.Insets;
@@ -15,7 +18,7 @@ import javafx.scene.text.FontWeight;
 
 import java.net.URL;
 import java.text.DecimalFormat;
-import java.util.List;
+import java.time.LocalDate;
 import java.util.ResourceBundle;
 
 /**
@@ -24,13 +27,29 @@ import java.util.ResourceBundle;
  */
 public class PropertyController implements Initializable {
     
+    // Results are fetched a page at a time as the list is scrolled
+    private static final int PAGE_SIZE = 20;
+    
+    // The next page is fetched once a card this close to the end of the loaded ones is shown
+    private static final int PREFETCH_CARDS = 5;
+    
+    // Shared by every card cell (used on the FX thread only)
+    private static final DecimalFormat RATING_FORMAT = new DecimalFormat("#.#");
+    
     @FXML private TextField locationField;
     @FXML private TextField maxPriceField;
     @FXML private TextField minRatingField;
+    @FXML private DatePicker checkInPicker;
+    @FXML private DatePicker checkOutPicker;
+    @FXML private ChoiceBox<PropertyQuery.SortOrder> sortChoice;
     @FXML private Button searchButton;
     @FXML private Button clearButton;
-    @FXML private VBox propertiesContainer;
-    @FXML private Label noResultsLabel;
+    @FXML private ListView<Property> propertiesList;
+    
+    private PropertyQuery currentQuery;
+    private String nextCursor;
+    // Cursor of the page already queued for loading, so it is fetched once
+    private String requestedCursor;
     
     @Override
     public void initialize(URL location, ResourceBundle resources) {
@@ -38,8 +57,15 @@ public class PropertyController implements Initializable {
         searchButton.setOnAction(e -> handleSearch());
         clearButton.setOnAction(e -> handleClear());
         
-        // Load all properties on startup
-        loadProperties(PropertyService.getAllProperties());
+        sortChoice.getItems().setAll(PropertyQuery.SortOrder.values());
+        sortChoice.setValue(PropertyQuery.SortOrder.RATING);
+        sortChoice.setOnAction(e -> handleSearch());
+        
+        // Cards are cells: only the visible ones exist and they are reused while scrolling
+        propertiesList.setCellFactory(list -> new PropertyCardCell());
+        
+        // Load the first page of all properties on startup
+        loadProperties(newQuery());
     }
     
     @FXML
@@ -64,14 +90,18 @@ public class PropertyController implements Initializable {
             // Invalid rating, ignore
         }
         
-        // Use Streams for filtering (already done in PropertyService)
-        List<Property> results = PropertyService.searchProperties(
-            location.isEmpty() ? null : location,
-            maxPrice,
-            minRating
-        );
+        // Dates only filter when both are picked
+        LocalDate checkIn = checkInPicker.getValue();
+        LocalDate checkOut = checkOutPicker.getValue();
         
-        loadProperties(results);
+        PropertyQuery query = newQuery();
+        query.setLocation(location.isEmpty() ? null : location);
+        query.setMaxPrice(maxPrice);
+        query.setMinRating(minRating);
+        query.setCheckIn(checkIn);
+        query.setCheckOut(checkOut);
+        
+        loadProperties(query);
     }
     
     @FXML
@@ -79,7 +109,9 @@ public class PropertyController implements Initializable {
         locationField.clear();
         maxPriceField.clear();
         minRatingField.clear();
-        loadProperties(PropertyService.getAllProperties());
+        checkInPicker.setValue(null);
+        checkOutPicker.setValue(null);
+        loadProperties(newQuery());
     }
     
     @FXML
@@ -87,64 +119,126 @@ public class PropertyController implements Initializable {
         SceneManager.switchScene("/com/airbnb/views/MainDashboard.fxml", "Airbnb System - Dashboard");
     }
     
-    private void loadProperties(List<Property> properties) {
-        propertiesContainer.getChildren().clear();
-        
-        if (properties.isEmpty()) {
-            noResultsLabel.setVisible(true);
+    private PropertyQuery newQuery() {
+        PropertyQuery query = new PropertyQuery();
+        if (sortChoice.getValue() != null) {
+            query.setSortOrder(sortChoice.getValue());
+        }
+        return query;
+    }
+    
+    /**
+     * Start a new search and show its first page
+     */
+    private void loadProperties(PropertyQuery query) {
+        currentQuery = query;
+        PropertyPage page = PropertyService.searchPage(query, PAGE_SIZE, null);
+        propertiesList.getItems().setAll(page.getProperties());
+        propertiesList.scrollTo(0);
+        nextCursor = page.getNextCursor();
+        requestedCursor = null;
+    }
+    
+    /**
+     * Queue the next page of the current search, unless it is already queued or there is none
+     */
+    private void requestNextPage() {
+        if (nextCursor == null || nextCursor.equals(requestedCursor)) {
             return;
         }
-        
-        noResultsLabel.setVisible(false);
-        
-        // Create property cards using Streams (for demonstration)
-        properties.forEach(property -> {
-            VBox card = createPropertyCard(property);
-            propertiesContainer.getChildren().add(card);
-        });
+        requestedCursor = nextCursor;
+        String cursor = nextCursor;
+        // Not while the list is laying out or handling the scroll
+        Platform.runLater(() -> loadNextPage(cursor));
     }
     
-    private VBox createPropertyCard(Property property) {
-        VBox card = new VBox(10);
-        card.setStyle("-fx-background-color: white; -fx-background-radius: 5; -fx-padding: 15; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 2);");
-        card.setPrefWidth(800);
-        
-        HBox header = new HBox(10);
-        Label titleLabel = new Label(property.getTitle());
-        titleLabel.setFont(Font.font("System", FontWeight.BOLD, 16));
-        
-        Region spacer = new Region();
-        HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
-        
-        // Display average rating
-        DecimalFormat df = new DecimalFormat("#.#");
-        String ratingText = "Rating: " + df.format(property.getAverageRating()) + "/5.0";
-        if (property.getAverageRating() > 0) {
-            ratingText += " ⭐".repeat((int) Math.round(property.getAverageRating()));
-        } else {
-            ratingText += " (No ratings yet)";
+    /**
+     * Append the page after a cursor, if it is still the next page of the current search
+     */
+    private void loadNextPage(String cursor) {
+        if (currentQuery == null || !cursor.equals(nextCursor)) {
+            // A new search started or this page was already appended
+            return;
+        }
+        PropertyPage page = PropertyService.searchPage(currentQuery, PAGE_SIZE, nextCursor);
+        propertiesList.getItems().addAll(page.getProperties());
+        nextCursor = page.getNextCursor();
+    }
+    
+    /**
+     * Property card shown as a list cell
+     * Its nodes are built once and refilled for whichever property scrolls into it.
+     */
+    private class PropertyCardCell extends ListCell<Property> {
+        
+        private final VBox card = new VBox(10);
+        private final Label titleLabel = new Label();
+        private final Label ratingLabel = new Label();
+        private final Label locationLabel = new Label();
+        private final Label priceLabel = new Label();
+        private final Label descLabel = new Label();
+        private final Button viewButton = new Button("View Details");
+        
+        PropertyCardCell() {
+            card.setStyle("-fx-background-color: white; -fx-background-radius: 5; -fx-padding: 15; -fx-effect: dropshadow(gaussian, rgba(0,0,0,0.1), 5, 0, 0, 2);");
+            card.setPrefWidth(800);
+            
+            HBox header = new HBox(10);
+            titleLabel.setFont(Font.font("System", FontWeight.BOLD, 16));
+            
+            Region spacer = new Region();
+            HBox.setHgrow(spacer, javafx.scene.layout.Priority.ALWAYS);
+            
+            ratingLabel.setStyle("-fx-text-fill: #f39c12; -fx-font-weight: bold;");
+            header.getChildren().addAll(titleLabel, spacer, ratingLabel);
+            
+            priceLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold; -fx-font-size: 14;");
+            
+            descLabel.setWrapText(true);
+            descLabel.setMaxWidth(750);
+            
+            viewButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white;");
+            viewButton.setOnAction(e -> {
+                if (getItem() != null) {
+                    viewPropertyDetails(getItem());
+                }
+            });
+            
+            card.getChildren().addAll(header, locationLabel, priceLabel, descLabel, viewButton);
+            setPadding(new Insets(5));
+            setStyle("-fx-background-color: transparent;");
         }
-        Label ratingLabel = new Label(ratingText);
-        ratingLabel.setStyle("-fx-text-fill: #f39c12; -fx-font-weight: bold;");
-        
-        header.getChildren().addAll(titleLabel, spacer, ratingLabel);
-        
-        Label locationLabel = new Label("📍 " + property.getLocation());
-        Label priceLabel = new Label("$" + property.getPrice() + " per night");
-        priceLabel.setStyle("-fx-text-fill: #27ae60; -fx-font-weight: bold; -fx-font-size: 14;");
-        
-        Label descLabel = new Label(property.getDescription());
-        descLabel.setWrapText(true);
-        descLabel.setMaxWidth(750);
-        
-        Button viewButton = new Button("View Details");
-        viewButton.setStyle("-fx-background-color: #3498db; -fx-text-fill: white;");
-        viewButton.setOnAction(e -> viewPropertyDetails(property));
-        
-        card.getChildren().addAll(header, locationLabel, priceLabel, descLabel, viewButton);
-        VBox.setMargin(card, new Insets(5));
         
-        return card;
+        @Override
+        protected void updateItem(Property property, boolean empty) {
+            super.updateItem(property, empty);
+            if (empty || property == null) {
+                setGraphic(null);
+                return;
+            }
+            
+            titleLabel.setText(property.getTitle());
+            
+            // Display average rating
+            String ratingText = "Rating: " + RATING_FORMAT.format(property.getAverageRating()) + "/5.0";
+            if (property.getAverageRating() > 0) {
+                ratingText += " ⭐".repeat((int) Math.round(property.getAverageRating()));
+            } else {
+                ratingText += " (No ratings yet)";
+            }
+            ratingLabel.setText(ratingText);
+            
+            locationLabel.setText("📍 " + property.getLocation());
+            priceLabel.setText("$" + property.getPrice() + " per night");
+            descLabel.setText(property.getDescription());
+            setGraphic(card);
+            
+            // Near the end of the loaded cards: queue the next page (at most once per page).
+            // Also keeps loading while the loaded cards do not fill the list.
+            if (getIndex() >= getListView().getItems().size() - PREFETCH_CARDS) {
+                requestNextPage();
+            }
+        }
     }
     
     private void viewPropertyDetails(Property property) {
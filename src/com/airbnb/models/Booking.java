@@ -1,5 +1,7 @@
 package com.airbnb.models;
 
+import com.airbnb.utils.RecordTokenizer;
+
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.temporal.ChronoUnit;
@@ -115,35 +117,26 @@ public class Booking {
      * Create Booking from file format string
      */
     public static Booking fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length < 7) {
+        RecordTokenizer fields = RecordTokenizer.forLine(line);
+        if (fields.fieldCount() < 7) {
             return null;
         }
         
         Booking booking = new Booking();
-        booking.setId(parts[0]);
-        booking.setPropertyId(parts[1]);
-        booking.setGuestId(parts[2]);
+        booking.setId(fields.field(0));
+        booking.setPropertyId(fields.field(1));
+        booking.setGuestId(fields.field(2));
         
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        try {
-            if (!parts[3].isEmpty()) {
-                booking.setCheckIn(LocalDate.parse(parts[3], formatter));
-            }
-            if (!parts[4].isEmpty()) {
-                booking.setCheckOut(LocalDate.parse(parts[4], formatter));
-            }
-        } catch (Exception e) {
-            // Invalid date format
+        // Invalid dates are left unset
+        if (!fields.isEmpty(3)) {
+            booking.setCheckIn(fields.parseDate(3, null));
         }
-        
-        try {
-            booking.setTotalPrice(Double.parseDouble(parts[5]));
-        } catch (NumberFormatException e) {
-            booking.setTotalPrice(0.0);
+        if (!fields.isEmpty(4)) {
+            booking.setCheckOut(fields.parseDate(4, null));
         }
         
-        booking.setStatus(parts[6]);
+        booking.setTotalPrice(fields.parseDouble(5, 0.0));
+        booking.setStatus(fields.field(6));
         
         return booking;
     }
@@ -0,0 +1,62 @@
+package com.airbnb.models;
+
+import java.time.LocalDate;
+
+/**
+ * Booking request model class
+ * One requested stay in a batch booking (e.g. a channel-manager import or group booking)
+ */
+public class BookingRequest {
+    private String propertyId;
+    private String guestId;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    
+    public BookingRequest() {
+    }
+    
+    public BookingRequest(String propertyId, String guestId, LocalDate checkIn, LocalDate checkOut) {
+        this.propertyId = propertyId;
+        this.guestId = guestId;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+    
+    // Getters and Setters
+    public String getPropertyId() {
+        return propertyId;
+    }
+    
+    public void setPropertyId(String propertyId) {
+        this.propertyId = propertyId;
+    }
+    
+    public String getGuestId() {
+        return guestId;
+    }
+    
+    public void setGuestId(String guestId) {
+        this.guestId = guestId;
+    }
+    
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+    
+    public void setCheckIn(LocalDate checkIn) {
+        this.checkIn = checkIn;
+    }
+    
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+    
+    public void setCheckOut(LocalDate checkOut) {
+        this.checkOut = checkOut;
+    }
+    
+    @Override
+    public String toString() {
+        return propertyId + " " + checkIn + " to " + checkOut;
+    }
+}
@@ -0,0 +1,47 @@
+package com.airbnb.models;
+
+/**
+ * Booking result model class
+ * Outcome of one request in a batch booking
+ */
+public class BookingResult {
+    
+    public enum Status {
+        CREATED,      // booking stored
+        CONFLICT,     // dates overlap an existing booking or an earlier request in the batch
+        UNAVAILABLE,  // dates are outside the host's available dates
+        INVALID,      // unknown property, or dates missing, without a night or past the stay limits
+        FAILED        // accepted, but the batch could not be written
+    }
+    
+    private final BookingRequest request;
+    private final Status status;
+    private final Booking booking; // null unless CREATED
+    
+    public BookingResult(BookingRequest request, Status status, Booking booking) {
+        this.request = request;
+        this.status = status;
+        this.booking = booking;
+    }
+    
+    public BookingRequest getRequest() {
+        return request;
+    }
+    
+    public Status getStatus() {
+        return status;
+    }
+    
+    public Booking getBooking() {
+        return booking;
+    }
+    
+    public boolean isCreated() {
+        return status == Status.CREATED;
+    }
+    
+    @Override
+    public String toString() {
+        return request + ": " + status;
+    }
+}
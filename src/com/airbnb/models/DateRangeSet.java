@@ -0,0 +1,127 @@
+package com.airbnb.models;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable set of day ranges, stored as sorted, non-overlapping epoch-day intervals
+ * Parsed once from a property's availableDates string:
+ *   "all" (or empty)                      -> every day
+ *   "2025-12-10,2025-12-20,2026-01-05,..." -> start,end pairs, both days inclusive;
+ *                                            an unpaired last date is a single day
+ * The days are nights the host offers: a stay needs the nights from check-in up to the
+ * day before check-out, so checking out the morning after the last open day is allowed.
+ * Overlapping or back-to-back ranges are merged, so a stay spanning them is contained.
+ * Containment checks are a binary search: O(log n) in the number of ranges.
+ */
+public class DateRangeSet {
+
+    public static final DateRangeSet ALL = new DateRangeSet(new long[0], new long[0], true);
+
+    private final long[] starts;
+    private final long[] ends;
+    private final boolean unrestricted;
+
+    private DateRangeSet(long[] starts, long[] ends, boolean unrestricted) {
+        this.starts = starts;
+        this.ends = ends;
+        this.unrestricted = unrestricted;
+    }
+
+    /**
+     * Parse an availableDates string
+     * Dates are taken two at a time, so a pair with an unreadable date is dropped as a
+     * whole and the pairs after it keep their meaning; if no pair can be read the
+     * property stays unrestricted
+     */
+    public static DateRangeSet parse(String availableDates) {
+        if (availableDates == null || availableDates.trim().isEmpty()
+                || availableDates.trim().equalsIgnoreCase("all")) {
+            return ALL;
+        }
+
+        // Pair up dates into ranges (an unpaired last date is a single day)
+        String[] tokens = availableDates.split(",");
+        List<long[]> parsed = new ArrayList<>();
+        for (int i = 0; i < tokens.length; i += 2) {
+            try {
+                long start = LocalDate.parse(tokens[i].trim()).toEpochDay();
+                long end = i + 1 < tokens.length ? LocalDate.parse(tokens[i + 1].trim()).toEpochDay() : start;
+                parsed.add(new long[] {Math.min(start, end), Math.max(start, end)});
+            } catch (DateTimeParseException e) {
+                // Skip the malformed pair
+            }
+        }
+        if (parsed.isEmpty()) {
+            return ALL;
+        }
+        int count = parsed.size();
+        long[][] ranges = parsed.toArray(new long[count][]);
+        Arrays.sort(ranges, (a, b) -> Long.compare(a[0], b[0]));
+
+        // Merge overlapping and adjacent ranges
+        long[] starts = new long[count];
+        long[] ends = new long[count];
+        int size = 0;
+        for (long[] range : ranges) {
+            if (size > 0 && range[0] <= ends[size - 1] + 1) {
+                ends[size - 1] = Math.max(ends[size - 1], range[1]);
+            } else {
+                starts[size] = range[0];
+                ends[size] = range[1];
+                size++;
+            }
+        }
+        return new DateRangeSet(Arrays.copyOf(starts, size), Arrays.copyOf(ends, size), false);
+    }
+
+    /**
+     * Check if every night of a stay is in the set: checkIn up to the day before checkOut
+     * A stay without nights (checkOut not after checkIn) needs only its check-in day.
+     */
+    public boolean contains(LocalDate checkIn, LocalDate checkOut) {
+        if (unrestricted) {
+            return true;
+        }
+        long from = checkIn.toEpochDay();
+        long to = Math.max(from, checkOut.toEpochDay() - 1);
+        // Last range starting on or before checkIn
+        int index = Arrays.binarySearch(starts, from);
+        if (index < 0) {
+            index = -index - 2;
+        }
+        return index >= 0 && to <= ends[index];
+    }
+
+    /**
+     * Check if the property can be booked on any day (no restriction)
+     */
+    public boolean isUnrestricted() {
+        return unrestricted;
+    }
+
+    /**
+     * Number of disjoint ranges (0 when unrestricted)
+     */
+    public int size() {
+        return starts.length;
+    }
+
+    @Override
+    public String toString() {
+        if (unrestricted) {
+            return "all";
+        }
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < starts.length; i++) {
+            if (i > 0) {
+                sb.append(',');
+            }
+            sb.append(LocalDate.ofEpochDay(starts[i])).append(',').append(LocalDate.ofEpochDay(ends[i]));
+        }
+        return sb.toString();
+    }
+}
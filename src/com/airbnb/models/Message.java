@@ -1,5 +1,7 @@
 package com.airbnb.models;
 
+import com.airbnb.utils.RecordTokenizer;
+
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
 
@@ -94,25 +96,21 @@ public class Message {
      * Create Message from file format string
      */
     public static Message fromFileString(String line) {
-        String[] parts = line.split("\\|", 6);
-        if (parts.length < 6) {
+        RecordTokenizer fields = RecordTokenizer.forLine(line, 6);
+        if (fields.fieldCount() < 6) {
             return null;
         }
         
         Message message = new Message();
-        message.setId(parts[0]);
-        message.setSenderId(parts[1]);
-        message.setReceiverId(parts[2]);
-        message.setContent(parts[3]);
+        message.setId(fields.field(0));
+        message.setSenderId(fields.field(1));
+        message.setReceiverId(fields.field(2));
+        message.setContent(fields.field(3));
         
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
-        try {
-            message.setTimestamp(LocalDateTime.parse(parts[4], formatter));
-        } catch (Exception e) {
-            message.setTimestamp(LocalDateTime.now());
-        }
+        LocalDateTime timestamp = fields.parseDateTime(4, null);
+        message.setTimestamp(timestamp != null ? timestamp : LocalDateTime.now());
         
-        message.setRead(Boolean.parseBoolean(parts[5]));
+        message.setRead(fields.parseBoolean(5));
         
         return message;
     }
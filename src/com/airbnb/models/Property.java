@@ -1,5 +1,8 @@
 package com.airbnb.models;
 
+import com.airbnb.utils.RecordTokenizer;
+
+import java.time.LocalDate;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -17,10 +20,21 @@ public class Property {
     private double averageRating; // Automatically calculated
     private String imagePath;
     private String availableDates; // Format: "2024-01-01,2024-01-15" or "all"
-    private List<Review> reviews; // For in-memory rating calculation
+    private DateRangeSet availability = DateRangeSet.ALL; // Parsed from availableDates
+    private List<Review> reviews; // Set explicitly; otherwise loaded on demand from the review source
+    
+    /**
+     * Loads a property's reviews page by page (wired up by the repository layer)
+     */
+    public interface ReviewSource {
+        List<Review> page(String propertyId, int offset, int limit);
+        
+        int count(String propertyId);
+    }
+    
+    private static ReviewSource reviewSource;
     
     public Property() {
-        this.reviews = new ArrayList<>();
         this.averageRating = 0.0;
     }
     
@@ -34,7 +48,7 @@ public class Property {
         this.ownerId = ownerId;
         this.imagePath = imagePath;
         this.availableDates = availableDates;
-        this.reviews = new ArrayList<>();
+        this.availability = DateRangeSet.parse(availableDates);
         this.averageRating = 0.0;
     }
     
@@ -43,7 +57,8 @@ public class Property {
      * This is called automatically when a review is added
      */
     public void calculateAverageRating() {
-        if (reviews == null || reviews.isEmpty()) {
+        List<Review> reviews = getReviews();
+        if (reviews.isEmpty()) {
             this.averageRating = 0.0;
             return;
         }
@@ -60,7 +75,7 @@ public class Property {
      */
     public void addReview(Review review) {
         if (reviews == null) {
-            reviews = new ArrayList<>();
+            reviews = new ArrayList<>(getReviews());
         }
         this.reviews.add(review);
         calculateAverageRating(); // Auto-update rating
@@ -137,10 +152,63 @@ public class Property {
     
     public void setAvailableDates(String availableDates) {
         this.availableDates = availableDates;
+        this.availability = DateRangeSet.parse(availableDates);
+    }
+    
+    /**
+     * Host availability as date ranges (parsed once from availableDates)
+     */
+    public DateRangeSet getAvailability() {
+        return availability;
+    }
+    
+    /**
+     * Check if the host has opened every night of a stay (checkIn up to the day before checkOut)
+     */
+    public boolean isOpenBetween(LocalDate checkIn, LocalDate checkOut) {
+        return availability.contains(checkIn, checkOut);
+    }
+    
+    /**
+     * Set the source used to load reviews on demand
+     */
+    public static void setReviewSource(ReviewSource source) {
+        reviewSource = source;
     }
     
+    /**
+     * Get all reviews of this property
+     * Loaded on demand (and not kept) unless reviews were set explicitly
+     */
     public List<Review> getReviews() {
-        return reviews;
+        if (reviews != null) {
+            return reviews;
+        }
+        return getReviews(0, Integer.MAX_VALUE);
+    }
+    
+    /**
+     * Get one page of this property's reviews, loaded on demand
+     */
+    public List<Review> getReviews(int offset, int limit) {
+        if (reviews != null) {
+            int from = Math.min(offset, reviews.size());
+            return new ArrayList<>(reviews.subList(from, (int) Math.min((long) from + limit, reviews.size())));
+        }
+        if (reviewSource == null || id == null) {
+            return new ArrayList<>();
+        }
+        return reviewSource.page(id, offset, limit);
+    }
+    
+    /**
+     * Number of reviews, without loading them
+     */
+    public int getReviewCount() {
+        if (reviews != null) {
+            return reviews.size();
+        }
+        return reviewSource == null || id == null ? 0 : reviewSource.count(id);
     }
     
     public void setReviews(List<Review> reviews) {
@@ -163,42 +231,32 @@ public class Property {
      * Create Property from file format string
      */
     public static Property fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length < 6) {
+        RecordTokenizer fields = RecordTokenizer.forLine(line);
+        if (fields.fieldCount() < 6) {
             return null;
         }
         
         Property property = new Property();
-        property.setId(parts[0]);
-        property.setTitle(parts[1]);
-        property.setDescription(parts[2]);
-        property.setLocation(parts[3]);
-        
-        try {
-            property.setPrice(Double.parseDouble(parts[4]));
-        } catch (NumberFormatException e) {
-            property.setPrice(0.0);
-        }
-        
-        property.setOwnerId(parts[5]);
+        property.setId(fields.field(0));
+        property.setTitle(fields.field(1));
+        property.setDescription(fields.field(2));
+        property.setLocation(fields.field(3));
+        property.setPrice(fields.parseDouble(4, 0.0));
+        property.setOwnerId(fields.field(5));
         
         // Parse averageRating if present
-        if (parts.length > 6 && !parts[6].isEmpty()) {
-            try {
-                property.setAverageRating(Double.parseDouble(parts[6]));
-            } catch (NumberFormatException e) {
-                property.setAverageRating(0.0);
-            }
+        if (fields.fieldCount() > 6 && !fields.isEmpty(6)) {
+            property.setAverageRating(fields.parseDouble(6, 0.0));
         }
         
         // Parse imagePath if present
-        if (parts.length > 7) {
-            property.setImagePath(parts[7]);
+        if (fields.fieldCount() > 7) {
+            property.setImagePath(fields.field(7));
         }
         
         // Parse availableDates if present
-        if (parts.length > 8) {
-            property.setAvailableDates(parts[8]);
+        if (fields.fieldCount() > 8) {
+            property.setAvailableDates(fields.field(8));
         } else {
             property.setAvailableDates("all");
         }
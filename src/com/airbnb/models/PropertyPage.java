@@ -0,0 +1,30 @@
+package com.airbnb.models;
+
+import java.util.List;
+
+/**
+ * Property page model class
+ * One page of search results and the cursor to fetch the next one
+ */
+public class PropertyPage {
+    
+    private final List<Property> properties;
+    private final String nextCursor; // null on the last page
+    
+    public PropertyPage(List<Property> properties, String nextCursor) {
+        this.properties = properties;
+        this.nextCursor = nextCursor;
+    }
+    
+    public List<Property> getProperties() {
+        return properties;
+    }
+    
+    public String getNextCursor() {
+        return nextCursor;
+    }
+    
+    public boolean hasMore() {
+        return nextCursor != null;
+    }
+}
@@ -0,0 +1,109 @@
+package com.airbnb.models;
+
+import java.time.LocalDate;
+
+/**
+ * Property search model class
+ * Every criterion is optional (null or empty means "any"); a property must match all that are set
+ */
+public class PropertyQuery {
+    
+    public enum SortOrder {
+        RATING("Top rated"),
+        PRICE_LOW("Price: low to high"),
+        PRICE_HIGH("Price: high to low");
+        
+        private final String label;
+        
+        SortOrder(String label) {
+            this.label = label;
+        }
+        
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+    
+    private String location;
+    private Double maxPrice;
+    private Double minRating;
+    private LocalDate checkIn;
+    private LocalDate checkOut;
+    private SortOrder sortOrder = SortOrder.RATING;
+    
+    public PropertyQuery() {
+    }
+    
+    public PropertyQuery(String location, Double maxPrice, Double minRating,
+                         LocalDate checkIn, LocalDate checkOut) {
+        this.location = location;
+        this.maxPrice = maxPrice;
+        this.minRating = minRating;
+        this.checkIn = checkIn;
+        this.checkOut = checkOut;
+    }
+    
+    // Getters and Setters
+    public String getLocation() {
+        return location;
+    }
+    
+    public void setLocation(String location) {
+        this.location = location;
+    }
+    
+    public Double getMaxPrice() {
+        return maxPrice;
+    }
+    
+    public void setMaxPrice(Double maxPrice) {
+        this.maxPrice = maxPrice;
+    }
+    
+    public Double getMinRating() {
+        return minRating;
+    }
+    
+    public void setMinRating(Double minRating) {
+        this.minRating = minRating;
+    }
+    
+    public LocalDate getCheckIn() {
+        return checkIn;
+    }
+    
+    public void setCheckIn(LocalDate checkIn) {
+        this.checkIn = checkIn;
+    }
+    
+    public LocalDate getCheckOut() {
+        return checkOut;
+    }
+    
+    public void setCheckOut(LocalDate checkOut) {
+        this.checkOut = checkOut;
+    }
+    
+    public SortOrder getSortOrder() {
+        return sortOrder;
+    }
+    
+    public void setSortOrder(SortOrder sortOrder) {
+        this.sortOrder = sortOrder;
+    }
+    
+    public boolean hasLocation() {
+        return location != null && !location.isEmpty();
+    }
+    
+    public boolean hasDates() {
+        return checkIn != null && checkOut != null;
+    }
+    
+    @Override
+    public String toString() {
+        return "location=" + location + " maxPrice=" + maxPrice + " minRating=" + minRating +
+               " dates=" + checkIn + ".." + checkOut + " sort=" + sortOrder.name();
+    }
+}
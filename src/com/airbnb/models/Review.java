@@ -1,5 +1,7 @@
 package com.airbnb.models;
 
+import com.airbnb.utils.RecordTokenizer;
+
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -92,30 +94,20 @@ public class Review {
      * Create Review from file format string
      */
     public static Review fromFileString(String line) {
-        String[] parts = line.split("\\|", 6);
-        if (parts.length < 6) {
+        RecordTokenizer fields = RecordTokenizer.forLine(line, 6);
+        if (fields.fieldCount() < 6) {
             return null;
         }
         
         Review review = new Review();
-        review.setId(parts[0]);
-        review.setPropertyId(parts[1]);
-        review.setUserId(parts[2]);
-        
-        try {
-            review.setRating(Integer.parseInt(parts[3]));
-        } catch (NumberFormatException e) {
-            review.setRating(5);
-        }
+        review.setId(fields.field(0));
+        review.setPropertyId(fields.field(1));
+        review.setUserId(fields.field(2));
+        review.setRating(fields.parseInt(3, 5));
+        review.setComment(fields.field(4));
         
-        review.setComment(parts[4]);
-        
-        DateTimeFormatter formatter = DateTimeFormatter.ISO_LOCAL_DATE;
-        try {
-            review.setDate(LocalDate.parse(parts[5], formatter));
-        } catch (Exception e) {
-            review.setDate(LocalDate.now());
-        }
+        LocalDate date = fields.parseDate(5, null);
+        review.setDate(date != null ? date : LocalDate.now());
         
         return review;
     }
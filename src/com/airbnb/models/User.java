@@ -1,5 +1,7 @@
 package com.airbnb.models;
 
+import com.airbnb.utils.RecordTokenizer;
+
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 
@@ -90,24 +92,21 @@ public class User {
      * Create User from file format string
      */
     public static User fromFileString(String line) {
-        String[] parts = line.split("\\|");
-        if (parts.length < 5) {
+        RecordTokenizer fields = RecordTokenizer.forLine(line);
+        if (fields.fieldCount() < 5) {
             return null;
         }
         
         User user = new User();
-        user.setId(parts[0]);
-        user.setUsername(parts[1]);
-        user.setEmail(parts[2]);
-        user.setPasswordHash(parts[3]);
-        user.setUserType(parts[4]);
+        user.setId(fields.field(0));
+        user.setUsername(fields.field(1));
+        user.setEmail(fields.field(2));
+        user.setPasswordHash(fields.field(3));
+        user.setUserType(fields.field(4));
         
-        if (parts.length > 5 && !parts[5].isEmpty()) {
-            try {
-                user.setRegistrationDate(LocalDate.parse(parts[5], DateTimeFormatter.ISO_LOCAL_DATE));
-            } catch (Exception e) {
-                user.setRegistrationDate(LocalDate.now());
-            }
+        if (fields.fieldCount() > 5 && !fields.isEmpty(5)) {
+            LocalDate registered = fields.parseDate(5, null);
+            user.setRegistrationDate(registered != null ? registered : LocalDate.now());
         } else {
             user.setRegistrationDate(LocalDate.now());
         }
@@ -0,0 +1,152 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Booking;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+
+/**
+ * Per-property index of the stays that block availability (CONFIRMED or PENDING bookings)
+ * Stays are kept in a tree ordered by check-in day together with the longest stay
+ * of the property, so an overlap check only visits stays that start between
+ * (checkIn - longest stay) and checkOut: O(log n) plus the few candidates found.
+ * Kept up to date by listening to the bookings repository.
+ */
+public class AvailabilityIndex implements RepositoryListener<Booking> {
+
+    private final Map<String, PropertyStays> byProperty = new HashMap<>();
+    private final Map<String, Stay> byBooking = new HashMap<>();
+
+    /**
+     * Check if any blocking stay overlaps [checkIn, checkOut] (both days inclusive)
+     */
+    public synchronized boolean hasOverlap(String propertyId, LocalDate checkIn, LocalDate checkOut) {
+        PropertyStays stays = byProperty.get(propertyId);
+        return stays != null && stays.overlaps(checkIn.toEpochDay(), checkOut.toEpochDay());
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Booking> bookings) {
+        byProperty.clear();
+        byBooking.clear();
+        for (Booking booking : bookings) {
+            add(booking);
+        }
+    }
+
+    @Override
+    public synchronized void onPut(Booking booking) {
+        // The booking may have been mutated in place; drop whatever was indexed for its ID
+        remove(booking.getId());
+        add(booking);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(Booking booking) {
+        if (!blocksDates(booking)) {
+            return;
+        }
+        Stay stay = new Stay(booking.getId(), booking.getPropertyId(),
+                             booking.getCheckIn().toEpochDay(), booking.getCheckOut().toEpochDay());
+        byBooking.put(stay.bookingId, stay);
+        byProperty.computeIfAbsent(stay.propertyId, id -> new PropertyStays()).add(stay);
+    }
+
+    private void remove(String bookingId) {
+        Stay stay = byBooking.remove(bookingId);
+        if (stay == null) {
+            return;
+        }
+        PropertyStays stays = byProperty.get(stay.propertyId);
+        if (stays != null && stays.remove(stay) && stays.isEmpty()) {
+            byProperty.remove(stay.propertyId);
+        }
+    }
+
+    /**
+     * Check if a booking holds its dates (CONFIRMED or PENDING with both dates set)
+     */
+    static boolean blocksDates(Booking booking) {
+        return ("CONFIRMED".equals(booking.getStatus()) || "PENDING".equals(booking.getStatus()))
+            && booking.getPropertyId() != null && booking.getCheckIn() != null && booking.getCheckOut() != null;
+    }
+
+    /**
+     * One blocking stay, in epoch days
+     */
+    private static class Stay {
+        final String bookingId;
+        final String propertyId;
+        final long start;
+        final long end;
+
+        Stay(String bookingId, String propertyId, long start, long end) {
+            this.bookingId = bookingId;
+            this.propertyId = propertyId;
+            this.start = start;
+            this.end = end;
+        }
+    }
+
+    /**
+     * Stays of one property keyed by start day
+     */
+    private static class PropertyStays {
+        private final NavigableMap<Long, List<Stay>> byStart = new TreeMap<>();
+        // Longest stay seen; only grows, which keeps the search window safe after removals
+        private long longest = 0;
+        private int size = 0;
+
+        void add(Stay stay) {
+            byStart.computeIfAbsent(stay.start, day -> new ArrayList<>(1)).add(stay);
+            longest = Math.max(longest, stay.end - stay.start);
+            size++;
+        }
+
+        boolean remove(Stay stay) {
+            List<Stay> sameStart = byStart.get(stay.start);
+            if (sameStart == null || !sameStart.remove(stay)) {
+                return false;
+            }
+            if (sameStart.isEmpty()) {
+                byStart.remove(stay.start);
+            }
+            size--;
+            return true;
+        }
+
+        boolean isEmpty() {
+            return size == 0;
+        }
+
+        /**
+         * Same rule as the original linear check: a stay conflicts unless it ends
+         * before checkIn or starts after checkOut
+         */
+        boolean overlaps(long checkIn, long checkOut) {
+            long from = checkIn - longest;
+            if (from > checkOut) {
+                // Reversed range wider than any stay: nothing can overlap it
+                return false;
+            }
+            for (List<Stay> candidates : byStart.subMap(from, true, checkOut, true).values()) {
+                for (Stay stay : candidates) {
+                    if (stay.end >= checkIn) {
+                        return true;
+                    }
+                }
+            }
+            return false;
+        }
+    }
+}
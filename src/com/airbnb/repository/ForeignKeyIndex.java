@@ -0,0 +1,138 @@
+package com.airbnb.repository;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+
+/**
+ * One-to-many index over a repository: key (e.g. ownerId, propertyId) -> record IDs
+ * Lets joins like host -> properties -> bookings walk in-memory sets instead of
+ * scanning every record. Kept up to date by listening to the source repository.
+ */
+public class ForeignKeyIndex<T> implements RepositoryListener<T> {
+
+    private final Repository<T> source;
+    private final Function<T, String> keyExtractor;
+    private final Function<T, String> idExtractor;
+
+    private final Map<String, Set<String>> idsByKey = new HashMap<>();
+    // Key each record was indexed under, since records are mutated in place before update()
+    private final Map<String, String> keyById = new HashMap<>();
+
+    public ForeignKeyIndex(Repository<T> source, Function<T, String> keyExtractor, Function<T, String> idExtractor) {
+        this.source = source;
+        this.keyExtractor = keyExtractor;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * IDs of the records with this key, in insertion order
+     */
+    public Set<String> idsFor(String key) {
+        source.ensureLoaded();
+        synchronized (this) {
+            Set<String> ids = idsByKey.get(key);
+            return ids != null ? new LinkedHashSet<>(ids) : new LinkedHashSet<>();
+        }
+    }
+
+    /**
+     * One page of the IDs with this key, without copying the rest
+     */
+    public List<String> idsFor(String key, int offset, int limit) {
+        source.ensureLoaded();
+        synchronized (this) {
+            List<String> page = new ArrayList<>();
+            Set<String> ids = idsByKey.get(key);
+            if (ids == null) {
+                return page;
+            }
+            int index = 0;
+            for (String id : ids) {
+                if (page.size() >= limit) {
+                    break;
+                }
+                if (index++ >= offset) {
+                    page.add(id);
+                }
+            }
+            return page;
+        }
+    }
+
+    /**
+     * Number of records with this key
+     */
+    public int count(String key) {
+        source.ensureLoaded();
+        synchronized (this) {
+            Set<String> ids = idsByKey.get(key);
+            return ids == null ? 0 : ids.size();
+        }
+    }
+
+    /**
+     * Records with this key
+     */
+    public List<T> find(String key) {
+        return source.findByIds(idsFor(key));
+    }
+
+    /**
+     * Records matching any of these keys, grouped by key in the given order
+     */
+    public List<T> findAll(Collection<String> keys) {
+        List<String> ids = new ArrayList<>();
+        for (String key : keys) {
+            ids.addAll(idsFor(key));
+        }
+        return source.findByIds(ids);
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<T> records) {
+        idsByKey.clear();
+        keyById.clear();
+        for (T record : records) {
+            add(record);
+        }
+    }
+
+    @Override
+    public synchronized void onPut(T record) {
+        remove(idExtractor.apply(record));
+        add(record);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(T record) {
+        String key = keyExtractor.apply(record);
+        if (key == null) {
+            return;
+        }
+        String id = idExtractor.apply(record);
+        idsByKey.computeIfAbsent(key, k -> new LinkedHashSet<>()).add(id);
+        keyById.put(id, key);
+    }
+
+    private void remove(String id) {
+        String key = keyById.remove(id);
+        if (key == null) {
+            return;
+        }
+        Set<String> ids = idsByKey.get(key);
+        ids.remove(id);
+        if (ids.isEmpty()) {
+            idsByKey.remove(key);
+        }
+    }
+}
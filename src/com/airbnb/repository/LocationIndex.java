@@ -0,0 +1,173 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Property;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Trigram inverted index over property locations: 3-character substring -> property IDs
+ * A substring search intersects the posting lists of the query's trigrams, starting
+ * from the shortest, and only checks the few candidates left instead of every listing.
+ * Queries shorter than three characters fall back to a scan of the normalized locations.
+ * Kept up to date by listening to the properties repository.
+ */
+public class LocationIndex implements RepositoryListener<Property> {
+
+    private static final int GRAM = 3;
+
+    private final Repository<Property> source;
+
+    private final Map<String, Set<String>> postings = new HashMap<>();
+    // Normalized location each property was indexed under, since properties are mutated in place
+    private final Map<String, String> locationById = new LinkedHashMap<>();
+
+    public LocationIndex(Repository<Property> source) {
+        this.source = source;
+    }
+
+    /**
+     * Normalize a location or query the same way the index does (case-insensitive)
+     */
+    private static String normalize(String location) {
+        return location.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * IDs of the properties whose location contains the query (case-insensitive)
+     */
+    public Set<String> idsMatching(String query) {
+        source.ensureLoaded();
+        String needle = normalize(query);
+        synchronized (this) {
+            Set<String> matches = new LinkedHashSet<>();
+            if (needle.length() < GRAM) {
+                for (Map.Entry<String, String> entry : locationById.entrySet()) {
+                    if (entry.getValue().contains(needle)) {
+                        matches.add(entry.getKey());
+                    }
+                }
+                return matches;
+            }
+
+            List<Set<String>> lists = new ArrayList<>();
+            for (String gram : grams(needle)) {
+                Set<String> ids = postings.get(gram);
+                if (ids == null) {
+                    return matches;
+                }
+                lists.add(ids);
+            }
+            lists.sort(Comparator.comparingInt(Set::size));
+
+            // Walk the shortest list; trigrams can match out of order, so verify the survivors
+            Set<String> shortest = lists.get(0);
+            for (String id : shortest) {
+                if (inAll(lists, id) && locationById.get(id).contains(needle)) {
+                    matches.add(id);
+                }
+            }
+            return matches;
+        }
+    }
+
+    /**
+     * Upper bound on the number of matches, from the shortest posting list (no IDs are collected)
+     */
+    public int estimate(String query) {
+        source.ensureLoaded();
+        String needle = normalize(query);
+        synchronized (this) {
+            if (needle.length() < GRAM) {
+                return locationById.size();
+            }
+            int shortest = Integer.MAX_VALUE;
+            for (String gram : grams(needle)) {
+                Set<String> ids = postings.get(gram);
+                shortest = Math.min(shortest, ids == null ? 0 : ids.size());
+            }
+            return shortest;
+        }
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Property> properties) {
+        postings.clear();
+        locationById.clear();
+        for (Property property : properties) {
+            add(property);
+        }
+    }
+
+    @Override
+    public synchronized void onPut(Property property) {
+        String indexed = locationById.get(property.getId());
+        if (indexed != null && property.getLocation() != null
+                && indexed.equals(normalize(property.getLocation()))) {
+            // Location unchanged (e.g. a rating update)
+            return;
+        }
+        remove(property.getId());
+        add(property);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(Property property) {
+        if (property.getLocation() == null) {
+            return;
+        }
+        String location = normalize(property.getLocation());
+        locationById.put(property.getId(), location);
+        for (String gram : grams(location)) {
+            postings.computeIfAbsent(gram, g -> new LinkedHashSet<>()).add(property.getId());
+        }
+    }
+
+    private void remove(String id) {
+        String location = locationById.remove(id);
+        if (location == null) {
+            return;
+        }
+        for (String gram : grams(location)) {
+            Set<String> ids = postings.get(gram);
+            if (ids != null) {
+                ids.remove(id);
+                if (ids.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    private static boolean inAll(List<Set<String>> lists, String id) {
+        for (int i = 1; i < lists.size(); i++) {
+            if (!lists.get(i).contains(id)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Distinct trigrams of a normalized string
+     */
+    private static Set<String> grams(String text) {
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM <= text.length(); i++) {
+            grams.add(text.substring(i, i + GRAM));
+        }
+        return grams;
+    }
+}
@@ -0,0 +1,120 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Booking;
+import com.airbnb.utils.ValidationUtil;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Occupancy bitmap of every property over epoch days
+ * Each property gets a bit slot; each occupied day holds a bitset of the
+ * properties booked on it (CONFIRMED or PENDING, check-in to check-out inclusive,
+ * the same days the availability check treats as taken).
+ * A date-range search ORs the day bitsets word by word, giving the set of
+ * occupied properties in O(days x properties / 64) without touching any booking.
+ * Kept up to date by listening to the bookings repository.
+ */
+public class OccupancyCalendar implements RepositoryListener<Booking> {
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final Map<Long, BitSet> days = new HashMap<>();
+    // Stays per property slot, needed to repaint days another stay still covers after a removal
+    private final Map<Integer, Map<String, long[]>> staysBySlot = new HashMap<>();
+    private final Map<String, Integer> slotByBooking = new HashMap<>();
+
+    /**
+     * Occupied properties for [checkIn, checkOut] (both days inclusive)
+     * Test a property with {@link #isFree(BitSet, String)}.
+     */
+    public synchronized BitSet occupiedBetween(LocalDate checkIn, LocalDate checkOut) {
+        BitSet occupied = new BitSet(slots.size());
+        for (long day = checkIn.toEpochDay(); day <= checkOut.toEpochDay(); day++) {
+            BitSet booked = days.get(day);
+            if (booked != null) {
+                occupied.or(booked);
+            }
+        }
+        return occupied;
+    }
+
+    /**
+     * Check a property against a result of {@link #occupiedBetween}
+     */
+    public synchronized boolean isFree(BitSet occupied, String propertyId) {
+        Integer slot = slots.get(propertyId);
+        return slot == null || !occupied.get(slot);
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Booking> bookings) {
+        days.clear();
+        staysBySlot.clear();
+        slotByBooking.clear();
+        for (Booking booking : bookings) {
+            add(booking);
+        }
+    }
+
+    @Override
+    public synchronized void onPut(Booking booking) {
+        // The booking may have been mutated in place; drop whatever was painted for its ID
+        remove(booking.getId());
+        add(booking);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(Booking booking) {
+        // Reversed date ranges occupy no day; stays past the booking limit can only come from
+        // a hand-edited file and are not painted, so a bad record cannot allocate years of days
+        if (!AvailabilityIndex.blocksDates(booking) || booking.getCheckOut().isBefore(booking.getCheckIn())
+                || ChronoUnit.DAYS.between(booking.getCheckIn(), booking.getCheckOut()) > ValidationUtil.MAX_STAY_NIGHTS) {
+            return;
+        }
+        int slot = slots.computeIfAbsent(booking.getPropertyId(), id -> slots.size());
+        long[] stay = {booking.getCheckIn().toEpochDay(), booking.getCheckOut().toEpochDay()};
+        staysBySlot.computeIfAbsent(slot, s -> new HashMap<>()).put(booking.getId(), stay);
+        slotByBooking.put(booking.getId(), slot);
+        paint(slot, stay[0], stay[1]);
+    }
+
+    private void remove(String bookingId) {
+        Integer slot = slotByBooking.remove(bookingId);
+        if (slot == null) {
+            return;
+        }
+        Map<String, long[]> stays = staysBySlot.get(slot);
+        long[] stay = stays.remove(bookingId);
+        for (long day = stay[0]; day <= stay[1]; day++) {
+            BitSet booked = days.get(day);
+            if (booked != null) {
+                booked.clear(slot);
+                if (booked.isEmpty()) {
+                    days.remove(day);
+                }
+            }
+        }
+        // Overlapping stays of the same property keep their days
+        for (long[] other : stays.values()) {
+            long from = Math.max(other[0], stay[0]);
+            long to = Math.min(other[1], stay[1]);
+            if (from <= to) {
+                paint(slot, from, to);
+            }
+        }
+    }
+
+    private void paint(int slot, long from, long to) {
+        for (long day = from; day <= to; day++) {
+            days.computeIfAbsent(day, d -> new BitSet()).set(slot);
+        }
+    }
+}
@@ -0,0 +1,271 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Property;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * Sorted numeric column over properties (e.g. price, average rating)
+ * Values are kept in a sorted double[] with a parallel int[] of property slots,
+ * so a range filter is two binary searches plus a contiguous slice.
+ * Changes are buffered and merged into the column on the next read: a few are
+ * shifted into place, many at once (a load or a batch of rating changes) trigger a re-sort.
+ * Kept up to date by listening to the properties repository, or fed values directly by
+ * the structure that owns them (e.g. average ratings by {@link RatingAggregates}).
+ */
+public class RangeIndex implements RepositoryListener<Property> {
+
+    // Above this share of pending changes the column is rebuilt instead of patched
+    private static final int REBUILD_DIVISOR = 32;
+
+    private final Repository<?> source;
+    private final ToDoubleFunction<Property> extractor;
+
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> idBySlot = new ArrayList<>();
+    private double[] valueBySlot = new double[16];
+    private final BitSet present = new BitSet();
+
+    // Sorted column as of the last merge
+    private double[] sortedValues = new double[0];
+    private int[] sortedSlots = new int[0];
+    private int size = 0;
+    // Value each slot has in the column (valid where inColumn is set), and slots changed since
+    private double[] columnValueBySlot = new double[16];
+    private final BitSet inColumn = new BitSet();
+    private final BitSet pending = new BitSet();
+
+    public RangeIndex(Repository<Property> source, ToDoubleFunction<Property> extractor) {
+        this.source = source;
+        this.extractor = extractor;
+    }
+
+    /**
+     * Index fed through put/remove/reset rather than as a properties listener
+     * @param source repository the values are derived from, loaded before each read
+     */
+    public RangeIndex(Repository<?> source) {
+        this.source = source;
+        this.extractor = null;
+    }
+
+    /**
+     * IDs of the properties with min <= value <= max, in ascending value order
+     * A null bound is open.
+     */
+    public List<String> idsBetween(Double min, Double max) {
+        source.ensureLoaded();
+        synchronized (this) {
+            merge();
+            int from = lowerBound(min);
+            int to = upperBound(max);
+            List<String> ids = new ArrayList<>(Math.max(0, to - from));
+            for (int i = from; i < to; i++) {
+                ids.add(idBySlot.get(sortedSlots[i]));
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Number of properties with min <= value <= max (no IDs are collected)
+     */
+    public int countBetween(Double min, Double max) {
+        source.ensureLoaded();
+        synchronized (this) {
+            merge();
+            return Math.max(0, upperBound(max) - lowerBound(min));
+        }
+    }
+
+    /**
+     * Set the value of one property
+     */
+    public synchronized void put(String id, double value) {
+        int slot = slotOf(id);
+        valueBySlot[slot] = value;
+        present.set(slot);
+        pending.set(slot);
+    }
+
+    /**
+     * Drop a property from the column
+     */
+    public synchronized void remove(String id) {
+        Integer slot = slots.get(id);
+        if (slot != null) {
+            present.clear(slot);
+            pending.set(slot);
+        }
+    }
+
+    /**
+     * Replace every value at once
+     */
+    public synchronized void reset(Map<String, Double> values) {
+        present.clear();
+        for (Map.Entry<String, Double> value : values.entrySet()) {
+            put(value.getKey(), value.getValue());
+        }
+        rebuild();
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Property> properties) {
+        present.clear();
+        for (Property property : properties) {
+            put(property.getId(), extractor.applyAsDouble(property));
+        }
+        rebuild();
+    }
+
+    @Override
+    public synchronized void onPut(Property property) {
+        put(property.getId(), extractor.applyAsDouble(property));
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private int slotOf(String id) {
+        int slot = slots.computeIfAbsent(id, key -> {
+            idBySlot.add(key);
+            return idBySlot.size() - 1;
+        });
+        if (slot >= valueBySlot.length) {
+            int capacity = Math.max(slot + 1, valueBySlot.length * 2);
+            valueBySlot = Arrays.copyOf(valueBySlot, capacity);
+            columnValueBySlot = Arrays.copyOf(columnValueBySlot, capacity);
+        }
+        return slot;
+    }
+
+    /**
+     * Bring the sorted column up to date with the pending changes
+     */
+    private void merge() {
+        if (pending.isEmpty()) {
+            return;
+        }
+        if (pending.cardinality() > size / REBUILD_DIVISOR) {
+            rebuild();
+            return;
+        }
+        for (int slot = pending.nextSetBit(0); slot >= 0; slot = pending.nextSetBit(slot + 1)) {
+            if (inColumn.get(slot)) {
+                removeFromColumn(slot);
+            }
+            if (present.get(slot)) {
+                insertIntoColumn(slot);
+            }
+        }
+        pending.clear();
+    }
+
+    private void rebuild() {
+        int count = present.cardinality();
+        double[] values = new double[count];
+        int n = 0;
+        for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1)) {
+            values[n++] = valueBySlot[slot];
+        }
+        Arrays.sort(values);
+
+        // Place each slot after the earlier slots with the same value
+        int[] placed = new int[count];
+        int[] ordered = new int[count];
+        for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1)) {
+            int first = firstIndexOf(values, count, valueBySlot[slot]);
+            ordered[first + placed[first]++] = slot;
+        }
+
+        sortedValues = values;
+        sortedSlots = ordered;
+        size = count;
+        inColumn.clear();
+        inColumn.or(present);
+        for (int slot = present.nextSetBit(0); slot >= 0; slot = present.nextSetBit(slot + 1)) {
+            columnValueBySlot[slot] = valueBySlot[slot];
+        }
+        pending.clear();
+    }
+
+    private void removeFromColumn(int slot) {
+        int i = firstIndexOf(sortedValues, size, columnValueBySlot[slot]);
+        while (sortedSlots[i] != slot) {
+            i++;
+        }
+        System.arraycopy(sortedValues, i + 1, sortedValues, i, size - i - 1);
+        System.arraycopy(sortedSlots, i + 1, sortedSlots, i, size - i - 1);
+        size--;
+        inColumn.clear(slot);
+    }
+
+    private void insertIntoColumn(int slot) {
+        if (size == sortedValues.length) {
+            int capacity = Math.max(16, size * 2);
+            sortedValues = Arrays.copyOf(sortedValues, capacity);
+            sortedSlots = Arrays.copyOf(sortedSlots, capacity);
+        }
+        double value = valueBySlot[slot];
+        int i = indexAfter(value);
+        System.arraycopy(sortedValues, i, sortedValues, i + 1, size - i);
+        System.arraycopy(sortedSlots, i, sortedSlots, i + 1, size - i);
+        sortedValues[i] = value;
+        sortedSlots[i] = slot;
+        size++;
+        columnValueBySlot[slot] = value;
+        inColumn.set(slot);
+    }
+
+    private int lowerBound(Double min) {
+        return min == null ? 0 : firstIndexOf(sortedValues, size, min);
+    }
+
+    private int upperBound(Double max) {
+        return max == null ? size : indexAfter(max);
+    }
+
+    /**
+     * First position whose value is >= value
+     */
+    private static int firstIndexOf(double[] values, int length, double value) {
+        int low = 0;
+        int high = length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(values[mid], value) < 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * First position whose value is > value
+     */
+    private int indexAfter(double value) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Double.compare(sortedValues[mid], value) <= 0) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+}
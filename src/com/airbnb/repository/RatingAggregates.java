@@ -0,0 +1,117 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Review;
+
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Per-property rating aggregate (sum and count of review ratings)
+ * Each review added, changed or removed adjusts its property's aggregate in O(1),
+ * so average ratings never require loading a property's reviews.
+ * Kept up to date by listening to the reviews repository; every change to an average
+ * is passed on to the range index over averages, so the two cannot drift apart.
+ * Properties without reviews have no entry there (their average is 0.0).
+ */
+public class RatingAggregates implements RepositoryListener<Review> {
+
+    private final Repository<Review> source;
+    private final RangeIndex averages;
+
+    private final Map<String, long[]> byProperty = new HashMap<>(); // {sum, count}
+    // What each review contributed, since reviews are mutated in place before update()
+    private final Map<String, Contribution> byReview = new HashMap<>();
+
+    public RatingAggregates(Repository<Review> source, RangeIndex averages) {
+        this.source = source;
+        this.averages = averages;
+    }
+
+    /**
+     * Average rating of a property, or 0.0 if it has no reviews
+     */
+    public double average(String propertyId) {
+        source.ensureLoaded();
+        synchronized (this) {
+            long[] aggregate = byProperty.get(propertyId);
+            return aggregate == null ? 0.0 : (double) aggregate[0] / aggregate[1];
+        }
+    }
+
+    /**
+     * Number of reviews of a property
+     */
+    public int count(String propertyId) {
+        source.ensureLoaded();
+        synchronized (this) {
+            long[] aggregate = byProperty.get(propertyId);
+            return aggregate == null ? 0 : (int) aggregate[1];
+        }
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Review> reviews) {
+        byProperty.clear();
+        byReview.clear();
+        for (Review review : reviews) {
+            add(review);
+        }
+        Map<String, Double> loaded = new HashMap<>();
+        for (Map.Entry<String, long[]> entry : byProperty.entrySet()) {
+            loaded.put(entry.getKey(), (double) entry.getValue()[0] / entry.getValue()[1]);
+        }
+        averages.reset(loaded);
+    }
+
+    @Override
+    public synchronized void onPut(Review review) {
+        remove(review.getId());
+        add(review);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(Review review) {
+        if (review.getPropertyId() == null) {
+            return;
+        }
+        long[] aggregate = byProperty.computeIfAbsent(review.getPropertyId(), id -> new long[2]);
+        aggregate[0] += review.getRating();
+        aggregate[1]++;
+        byReview.put(review.getId(), new Contribution(review.getPropertyId(), review.getRating()));
+        averages.put(review.getPropertyId(), (double) aggregate[0] / aggregate[1]);
+    }
+
+    private void remove(String reviewId) {
+        Contribution contribution = byReview.remove(reviewId);
+        if (contribution == null) {
+            return;
+        }
+        long[] aggregate = byProperty.get(contribution.propertyId);
+        aggregate[0] -= contribution.rating;
+        aggregate[1]--;
+        if (aggregate[1] == 0) {
+            byProperty.remove(contribution.propertyId);
+            averages.remove(contribution.propertyId);
+        } else {
+            averages.put(contribution.propertyId, (double) aggregate[0] / aggregate[1]);
+        }
+    }
+
+    /**
+     * Rating one review added to one property
+     */
+    private static class Contribution {
+        final String propertyId;
+        final int rating;
+
+        Contribution(String propertyId, int rating) {
+            this.propertyId = propertyId;
+            this.rating = rating;
+        }
+    }
+}
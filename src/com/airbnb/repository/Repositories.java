@@ -0,0 +1,100 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Booking;
+import com.airbnb.models.Message;
+import com.airbnb.models.Property;
+import com.airbnb.models.Review;
+import com.airbnb.models.User;
+import com.airbnb.services.FileService;
+
+import java.util.List;
+
+/**
+ * Shared repositories for the five data files
+ * Loaded once at startup; services read from here instead of re-parsing files
+ */
+public class Repositories {
+
+    public static final Repository<User> USERS = new Repository<>(
+        FileService.USERS_FILE, User::fromFileString, User::toFileString, User::getId);
+
+    public static final Repository<Property> PROPERTIES = new Repository<>(
+        FileService.LISTINGS_FILE, Property::fromFileString, Property::toFileString, Property::getId);
+
+    public static final Repository<Booking> BOOKINGS = new Repository<>(
+        FileService.BOOKINGS_FILE, Booking::fromFileString, Booking::toFileString, Booking::getId);
+
+    public static final Repository<Review> REVIEWS = new Repository<>(
+        FileService.REVIEWS_FILE, Review::fromFileString, Review::toFileString, Review::getId);
+
+    public static final Repository<Message> MESSAGES = new Repository<>(
+        FileService.MESSAGES_FILE, Message::fromFileString, Message::toFileString, Message::getId);
+
+    // Blocking stays per property, maintained from BOOKINGS
+    public static final AvailabilityIndex AVAILABILITY = new AvailabilityIndex();
+
+    // Occupied days of every property, maintained from BOOKINGS
+    public static final OccupancyCalendar OCCUPANCY = new OccupancyCalendar();
+
+    // Join indexes: owner -> properties, property -> bookings, property -> reviews
+    public static final ForeignKeyIndex<Property> PROPERTIES_BY_OWNER =
+        new ForeignKeyIndex<>(PROPERTIES, Property::getOwnerId, Property::getId);
+
+    public static final ForeignKeyIndex<Booking> BOOKINGS_BY_PROPERTY =
+        new ForeignKeyIndex<>(BOOKINGS, Booking::getPropertyId, Booking::getId);
+
+    public static final ForeignKeyIndex<Review> REVIEWS_BY_PROPERTY =
+        new ForeignKeyIndex<>(REVIEWS, Review::getPropertyId, Review::getId);
+
+    // Sorted average ratings of reviewed properties, fed by RATINGS
+    public static final RangeIndex RATING_RANGE = new RangeIndex(REVIEWS);
+
+    // Rating sum and count per property, maintained from REVIEWS
+    public static final RatingAggregates RATINGS = new RatingAggregates(REVIEWS, RATING_RANGE);
+
+    // Location trigrams -> properties, for substring search
+    public static final LocationIndex LOCATIONS = new LocationIndex(PROPERTIES);
+
+    // Title and description terms -> properties, for ranked keyword search
+    public static final TextIndex TEXT = new TextIndex(PROPERTIES);
+
+    // Sorted price column, for range filters
+    public static final RangeIndex PRICE_RANGE = new RangeIndex(PROPERTIES, Property::getPrice);
+
+    static {
+        BOOKINGS.addListener(AVAILABILITY);
+        BOOKINGS.addListener(OCCUPANCY);
+        PROPERTIES.addListener(PROPERTIES_BY_OWNER);
+        PROPERTIES.addListener(LOCATIONS);
+        PROPERTIES.addListener(TEXT);
+        PROPERTIES.addListener(PRICE_RANGE);
+        BOOKINGS.addListener(BOOKINGS_BY_PROPERTY);
+        REVIEWS.addListener(REVIEWS_BY_PROPERTY);
+        REVIEWS.addListener(RATINGS);
+        
+        // Properties load their reviews on demand, a page at a time, through the review index
+        Property.setReviewSource(new Property.ReviewSource() {
+            @Override
+            public List<Review> page(String propertyId, int offset, int limit) {
+                return REVIEWS.findByIds(REVIEWS_BY_PROPERTY.idsFor(propertyId, offset, limit));
+            }
+            
+            @Override
+            public int count(String propertyId) {
+                return REVIEWS_BY_PROPERTY.count(propertyId);
+            }
+        });
+    }
+
+    /**
+     * Load every data file into memory
+     * Called once at startup after the data directory is initialized
+     */
+    public static void loadAll() {
+        USERS.load();
+        PROPERTIES.load();
+        BOOKINGS.load();
+        REVIEWS.load();
+        MESSAGES.load();
+    }
+}
@@ -0,0 +1,317 @@
+package com.airbnb.repository;
+
+import com.airbnb.services.FileService;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+/**
+ * In-memory repository for a single data file
+ * Loads the file once, keeps records indexed by ID and writes every change through to disk
+ */
+public class Repository<T> {
+
+    private final String filePath;
+    private final Function<String, T> parser;
+    private final Function<T, String> serializer;
+    private final Function<T, String> idExtractor;
+
+    // Keyed by ID, kept in file order
+    private final Map<String, T> records = new LinkedHashMap<>();
+    private final List<RepositoryListener<T>> listeners = new CopyOnWriteArrayList<>();
+    private boolean loaded = false;
+
+    public Repository(String filePath, Function<String, T> parser,
+                      Function<T, String> serializer, Function<T, String> idExtractor) {
+        this.filePath = filePath;
+        this.parser = parser;
+        this.serializer = serializer;
+        this.idExtractor = idExtractor;
+    }
+
+    /**
+     * Load (or reload) all records from the data file
+     */
+    public synchronized void load() {
+        records.clear();
+        for (T record : FileService.readLiveRecords(filePath, parser)) {
+            records.put(idExtractor.apply(record), record);
+        }
+        loaded = true;
+        for (RepositoryListener<T> listener : listeners) {
+            listener.onLoad(records.values());
+        }
+    }
+
+    /**
+     * Load the data file if it has not been loaded yet
+     */
+    public synchronized void ensureLoaded() {
+        if (!loaded) {
+            load();
+        }
+    }
+
+    /**
+     * Register a listener for changes; it is sent the current records if already loaded
+     */
+    public synchronized void addListener(RepositoryListener<T> listener) {
+        listeners.add(listener);
+        if (loaded) {
+            listener.onLoad(records.values());
+        }
+    }
+
+    /**
+     * Get all records in file order
+     */
+    public synchronized List<T> findAll() {
+        ensureLoaded();
+        return new ArrayList<>(records.values());
+    }
+
+    /**
+     * Get the records matching a filter, in file order
+     * Only the matches are copied out of the repository.
+     */
+    public synchronized List<T> findWhere(Predicate<T> filter) {
+        ensureLoaded();
+        List<T> matches = new ArrayList<>();
+        for (T record : records.values()) {
+            if (filter.test(record)) {
+                matches.add(record);
+            }
+        }
+        return matches;
+    }
+
+    /**
+     * Get the first record matching a filter, or null
+     */
+    public synchronized T findFirst(Predicate<T> filter) {
+        ensureLoaded();
+        for (T record : records.values()) {
+            if (filter.test(record)) {
+                return record;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Count the records matching a filter
+     */
+    public synchronized long count(Predicate<T> filter) {
+        ensureLoaded();
+        long count = 0;
+        for (T record : records.values()) {
+            if (filter.test(record)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Get a record by ID, or null if it does not exist
+     * Before the repository is loaded, the record is read directly via the offset index
+     */
+    public synchronized T findById(String id) {
+        if (id == null) {
+            return null;
+        }
+        if (!loaded) {
+            String line = FileService.readLineById(filePath, id);
+            return line != null ? parser.apply(line) : null;
+        }
+        return records.get(id);
+    }
+
+    /**
+     * Get the records with the given IDs, in the order given (unknown IDs are skipped)
+     */
+    public synchronized List<T> findByIds(Collection<String> ids) {
+        ensureLoaded();
+        List<T> found = new ArrayList<>(ids.size());
+        for (String id : ids) {
+            T record = records.get(id);
+            if (record != null) {
+                found.add(record);
+            }
+        }
+        return found;
+    }
+
+    /**
+     * Get the number of records
+     */
+    public synchronized int count() {
+        ensureLoaded();
+        return records.size();
+    }
+
+    /**
+     * Add a new record and append it to the data file
+     * The append is queued while holding the lock (so file order matches memory order)
+     * and awaited outside it, letting concurrent inserts share one group commit.
+     * If the write fails the record is taken back out of memory.
+     * @return false if the record could not be written
+     */
+    public boolean insert(T record) {
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            ensureLoaded();
+            records.put(idExtractor.apply(record), record);
+            for (RepositoryListener<T> listener : listeners) {
+                listener.onPut(record);
+            }
+            written = FileService.appendLineAsync(filePath, serializer.apply(record));
+        }
+        if (!FileService.awaitWrite(filePath, written)) {
+            rollBack(Collections.singletonList(record));
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Add several new records and append them to the data file as one write
+     */
+    public boolean insertAll(List<T> newRecords) {
+        if (newRecords.isEmpty()) {
+            return true;
+        }
+        CompletableFuture<Void> written;
+        synchronized (this) {
+            ensureLoaded();
+            List<String> lines = new ArrayList<>(newRecords.size());
+            for (T record : newRecords) {
+                records.put(idExtractor.apply(record), record);
+                for (RepositoryListener<T> listener : listeners) {
+                    listener.onPut(record);
+                }
+                lines.add(serializer.apply(record));
+            }
+            written = FileService.appendLinesAsync(filePath, lines);
+        }
+        if (!FileService.awaitWrite(filePath, written)) {
+            rollBack(newRecords);
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Take inserted records whose write failed back out of memory and the indexes
+     * A record replaced in the meantime is left alone.
+     */
+    private synchronized void rollBack(List<T> inserted) {
+        for (T record : inserted) {
+            String id = idExtractor.apply(record);
+            if (records.get(id) == record) {
+                records.remove(id);
+                for (RepositoryListener<T> listener : listeners) {
+                    listener.onRemove(id);
+                }
+            }
+        }
+    }
+
+    /**
+     * Replace an existing record and persist its new version
+     */
+    public synchronized boolean update(T record) {
+        ensureLoaded();
+        String id = idExtractor.apply(record);
+        if (!records.containsKey(id)) {
+            return false;
+        }
+        records.put(id, record);
+        for (RepositoryListener<T> listener : listeners) {
+            listener.onPut(record);
+        }
+        return FileService.putRecord(filePath, id, serializer.apply(record));
+    }
+
+    /**
+     * Replace several existing records and persist their new versions with a single write
+     * @return the number of records written
+     */
+    public synchronized int updateAll(Collection<T> changed) {
+        ensureLoaded();
+        Map<String, String> lines = new LinkedHashMap<>();
+        for (T record : changed) {
+            String id = idExtractor.apply(record);
+            if (!records.containsKey(id)) {
+                continue;
+            }
+            records.put(id, record);
+            for (RepositoryListener<T> listener : listeners) {
+                listener.onPut(record);
+            }
+            lines.put(id, serializer.apply(record));
+        }
+        if (lines.isEmpty()) {
+            return 0;
+        }
+        return FileService.putRecords(filePath, lines);
+    }
+
+    /**
+     * Remove a record and persist the deletion
+     */
+    public synchronized boolean delete(String id) {
+        ensureLoaded();
+        if (id == null || records.remove(id) == null) {
+            return false;
+        }
+        for (RepositoryListener<T> listener : listeners) {
+            listener.onRemove(id);
+        }
+        return FileService.removeRecord(filePath, id);
+    }
+
+    /**
+     * Remove a set of records and persist the deletions with a single write
+     * @return the number of records removed
+     */
+    public synchronized int deleteAll(Collection<String> ids) {
+        ensureLoaded();
+        List<String> removed = new ArrayList<>();
+        for (String id : ids) {
+            if (id != null && records.remove(id) != null) {
+                removed.add(id);
+                for (RepositoryListener<T> listener : listeners) {
+                    listener.onRemove(id);
+                }
+            }
+        }
+        if (removed.isEmpty()) {
+            return 0;
+        }
+        return FileService.removeRecords(filePath, removed);
+    }
+
+    /**
+     * Remove every record matching a filter with a single write
+     * @return the number of records removed
+     */
+    public synchronized int deleteWhere(Predicate<T> filter) {
+        ensureLoaded();
+        List<String> ids = new ArrayList<>();
+        for (T record : records.values()) {
+            if (filter.test(record)) {
+                ids.add(idExtractor.apply(record));
+            }
+        }
+        return deleteAll(ids);
+    }
+}
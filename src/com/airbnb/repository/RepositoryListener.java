@@ -0,0 +1,27 @@
+package com.airbnb.repository;
+
+import java.util.Collection;
+
+/**
+ * Receives every change made through a repository, to keep secondary indexes up to date
+ * Called while the repository lock is held, so implementations must not call back into it.
+ * Records are often mutated in place before update() is called, so listeners should
+ * track previous state by ID rather than by comparing old and new objects.
+ */
+public interface RepositoryListener<T> {
+
+    /**
+     * The repository was (re)loaded; replaces everything seen so far
+     */
+    void onLoad(Collection<T> records);
+
+    /**
+     * A record was inserted or a new version of it was stored
+     */
+    void onPut(T record);
+
+    /**
+     * A record was removed
+     */
+    void onRemove(String id);
+}
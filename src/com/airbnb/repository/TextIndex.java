@@ -0,0 +1,228 @@
+package com.airbnb.repository;
+
+import com.airbnb.models.Property;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.Set;
+
+/**
+ * Full-text inverted index over property titles and descriptions, ranked with BM25
+ * Each term maps to the properties containing it with the term's frequency there.
+ * A search scores only the properties in the query terms' posting lists, so its cost
+ * depends on those lists rather than the corpus, and keeps the best N in a bounded
+ * min-heap, so no full sort of the matches is needed.
+ * Kept up to date by listening to the properties repository.
+ */
+public class TextIndex implements RepositoryListener<Property> {
+
+    // Standard BM25 parameters: term frequency saturation and length normalization
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private final Repository<Property> source;
+
+    // Each property gets a small integer slot; slots of removed properties are reused
+    private final Map<String, Integer> slots = new HashMap<>();
+    private final List<String> idBySlot = new ArrayList<>();
+    private final ArrayDeque<Integer> freeSlots = new ArrayDeque<>();
+    private int[] lengthBySlot = new int[16];
+    // Per-search scratch, reused under the lock: scores by slot (0 = not reached) and the slots reached
+    private double[] scoreBySlot = new double[16];
+    private int[] reached = new int[16];
+
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>(); // term -> slot -> tf
+    // Term frequencies each property was indexed with, since properties are mutated in place
+    private final Map<String, Map<String, Integer>> termsById = new HashMap<>();
+    private long totalLength = 0;
+
+    public TextIndex(Repository<Property> source) {
+        this.source = source;
+    }
+
+    /**
+     * IDs of the best matching properties for a free-text query, best first
+     * @param limit maximum number of results
+     */
+    public List<String> search(String query, int limit) {
+        source.ensureLoaded();
+        Set<String> terms = new LinkedHashSet<>(tokenize(query));
+        synchronized (this) {
+            if (terms.isEmpty() || limit <= 0 || termsById.isEmpty()) {
+                return new ArrayList<>();
+            }
+            int documents = termsById.size();
+            double averageLength = (double) totalLength / documents;
+
+            List<Map<Integer, Integer>> lists = new ArrayList<>();
+            for (String term : terms) {
+                Map<Integer, Integer> posting = postings.get(term);
+                if (posting != null) {
+                    lists.add(posting);
+                }
+            }
+            if (lists.isEmpty()) {
+                return new ArrayList<>();
+            }
+
+            // Only the slots the postings reach are scored, ranked and reset afterwards
+            int reachedCount = 0;
+            try {
+                for (Map<Integer, Integer> posting : lists) {
+                    double idf = Math.log(1 + (documents - posting.size() + 0.5) / (posting.size() + 0.5));
+                    for (Map.Entry<Integer, Integer> entry : posting.entrySet()) {
+                        int slot = entry.getKey();
+                        int tf = entry.getValue();
+                        double norm = K1 * (1 - B + B * lengthBySlot[slot] / averageLength);
+                        if (scoreBySlot[slot] == 0) {
+                            reached[reachedCount++] = slot;
+                        }
+                        // Always positive: idf > 0 and tf >= 1
+                        scoreBySlot[slot] += idf * tf * (K1 + 1) / (tf + norm);
+                    }
+                }
+                return topK(reachedCount, limit);
+            } finally {
+                for (int i = 0; i < reachedCount; i++) {
+                    scoreBySlot[reached[i]] = 0;
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void onLoad(Collection<Property> properties) {
+        slots.clear();
+        idBySlot.clear();
+        freeSlots.clear();
+        postings.clear();
+        termsById.clear();
+        totalLength = 0;
+        for (Property property : properties) {
+            add(property.getId(), frequencies(property));
+        }
+    }
+
+    @Override
+    public synchronized void onPut(Property property) {
+        Map<String, Integer> terms = frequencies(property);
+        if (terms.equals(termsById.get(property.getId()))) {
+            // Text unchanged (e.g. a rating or price update)
+            return;
+        }
+        remove(property.getId());
+        add(property.getId(), terms);
+    }
+
+    @Override
+    public synchronized void onRemove(String id) {
+        remove(id);
+    }
+
+    private void add(String id, Map<String, Integer> terms) {
+        int slot = slots.computeIfAbsent(id, key -> {
+            Integer free = freeSlots.poll();
+            if (free != null) {
+                idBySlot.set(free, key);
+                return free;
+            }
+            idBySlot.add(key);
+            return idBySlot.size() - 1;
+        });
+        if (slot >= lengthBySlot.length) {
+            int capacity = Math.max(slot + 1, lengthBySlot.length * 2);
+            lengthBySlot = Arrays.copyOf(lengthBySlot, capacity);
+            scoreBySlot = Arrays.copyOf(scoreBySlot, capacity);
+            reached = Arrays.copyOf(reached, capacity);
+        }
+        int length = 0;
+        for (Map.Entry<String, Integer> entry : terms.entrySet()) {
+            postings.computeIfAbsent(entry.getKey(), t -> new HashMap<>()).put(slot, entry.getValue());
+            length += entry.getValue();
+        }
+        termsById.put(id, terms);
+        lengthBySlot[slot] = length;
+        totalLength += length;
+    }
+
+    private void remove(String id) {
+        Map<String, Integer> terms = termsById.remove(id);
+        if (terms == null) {
+            return;
+        }
+        int slot = slots.get(id);
+        for (String term : terms.keySet()) {
+            Map<Integer, Integer> posting = postings.get(term);
+            posting.remove(slot);
+            if (posting.isEmpty()) {
+                postings.remove(term);
+            }
+        }
+        totalLength -= lengthBySlot[slot];
+        lengthBySlot[slot] = 0;
+        slots.remove(id);
+        idBySlot.set(slot, null);
+        freeSlots.push(slot);
+    }
+
+    /**
+     * Keep the highest scores in a min-heap of at most limit slots (ties go to the earlier slot)
+     */
+    private List<String> topK(int reachedCount, int limit) {
+        Comparator<Integer> worstFirst = Comparator.<Integer>comparingDouble(slot -> scoreBySlot[slot])
+            .thenComparing(Comparator.<Integer>reverseOrder());
+        PriorityQueue<Integer> heap = new PriorityQueue<>(limit + 1, worstFirst);
+        for (int i = 0; i < reachedCount; i++) {
+            int slot = reached[i];
+            if (heap.size() < limit) {
+                heap.add(slot);
+            } else if (worstFirst.compare(slot, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(slot);
+            }
+        }
+        List<String> ranked = new ArrayList<>(heap.size());
+        while (!heap.isEmpty()) {
+            ranked.add(idBySlot.get(heap.poll()));
+        }
+        Collections.reverse(ranked);
+        return ranked;
+    }
+
+    private static Map<String, Integer> frequencies(Property property) {
+        Map<String, Integer> terms = new HashMap<>();
+        for (String term : tokenize(property.getTitle())) {
+            terms.merge(term, 1, Integer::sum);
+        }
+        for (String term : tokenize(property.getDescription())) {
+            terms.merge(term, 1, Integer::sum);
+        }
+        return terms;
+    }
+
+    /**
+     * Lower-cased runs of letters and digits
+     */
+    private static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        for (String token : text.toLowerCase(Locale.ROOT).split("[^\\p{L}\\p{N}]+")) {
+            if (!token.isEmpty()) {
+                tokens.add(token);
+            }
+        }
+        return tokens;
+    }
+}
@@ -3,9 +3,9 @@ package com.airbnb.services;
 import com.airbnb.models.Booking;
 import com.airbnb.models.Property;
 import com.airbnb.models.User;
+import com.airbnb.repository.Repositories;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Admin service
@@ -38,21 +38,21 @@ public class AdminService {
      * Get total number of users
      */
     public static long getTotalUsers() {
-        return getAllUsers().stream().count();
+        return Repositories.USERS.count();
     }
     
     /**
      * Get total number of properties
      */
     public static long getTotalProperties() {
-        return getAllProperties().stream().count();
+        return Repositories.PROPERTIES.count();
     }
     
     /**
      * Get total number of bookings
      */
     public static long getTotalBookings() {
-        return getAllBookings().stream().count();
+        return Repositories.BOOKINGS.count();
     }
     
     /**
@@ -60,9 +60,7 @@ public class AdminService {
      * Uses Streams for filtering
      */
     public static long getActiveBookings() {
-        return getAllBookings().stream()
-            .filter(b -> "CONFIRMED".equals(b.getStatus()))
-            .count();
+        return Repositories.BOOKINGS.count(b -> "CONFIRMED".equals(b.getStatus()));
     }
     
     /**
@@ -70,8 +68,7 @@ public class AdminService {
      * Uses Streams for calculation
      */
     public static double getTotalRevenue() {
-        return getAllBookings().stream()
-            .filter(b -> "COMPLETED".equals(b.getStatus()))
+        return Repositories.BOOKINGS.findWhere(b -> "COMPLETED".equals(b.getStatus())).stream()
             .mapToDouble(Booking::getTotalPrice)
             .sum();
     }
@@ -80,9 +77,7 @@ public class AdminService {
      * Get number of users by type
      */
     public static long getUsersByType(String userType) {
-        return getAllUsers().stream()
-            .filter(u -> u.getUserType().equals(userType))
-            .count();
+        return Repositories.USERS.count(u -> u.getUserType().equals(userType));
     }
     
     /**
@@ -105,18 +100,8 @@ public class AdminService {
      * Delete a user (admin only)
      */
     public static boolean deleteUser(String userId) {
-        // Also delete user's properties, bookings, reviews, and messages
-        List<Property> userProperties = PropertyService.getPropertiesByOwnerId(userId);
-        for (Property property : userProperties) {
-            PropertyService.deleteProperty(property.getId());
-        }
-        
-        List<Booking> userBookings = BookingService.getBookingsByGuestId(userId);
-        for (Booking booking : userBookings) {
-            BookingService.deleteBooking(booking.getId());
-        }
-        
-        return FileService.deleteLineById(FileService.USERS_FILE, userId);
+        // Also delete user's properties, bookings, reviews, and messages (one write per file)
+        return CascadeDeleteService.execute(CascadeDeleteService.planUserDelete(userId));
     }
 }
 
@@ -1,12 +1,12 @@
 package com.airbnb.services;
 
 import com.airbnb.models.User;
+import com.airbnb.repository.Repositories;
 import com.airbnb.utils.SecurityUtil;
 import com.airbnb.utils.ValidationUtil;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Authentication service
@@ -30,10 +30,8 @@ public class AuthService {
         }
         
         // Check if username or email already exists
-        List<User> users = getAllUsers();
-        boolean exists = users.stream()
-            .anyMatch(u -> u.getUsername().equalsIgnoreCase(username) || 
-                         u.getEmail().equalsIgnoreCase(email));
+        boolean exists = Repositories.USERS.findFirst(u -> u.getUsername().equalsIgnoreCase(username) || 
+                                                          u.getEmail().equalsIgnoreCase(email)) != null;
         
         if (exists) {
             return false;
@@ -44,8 +42,8 @@ public class AuthService {
         String passwordHash = SecurityUtil.hashPassword(password);
         User user = new User(id, username, email, passwordHash, userType);
         
-        // Save to file
-        FileService.appendLine(FileService.USERS_FILE, user.toFileString());
+        // Save to repository (written through to file)
+        Repositories.USERS.insert(user);
         return true;
     }
     
@@ -53,45 +51,30 @@ public class AuthService {
      * Login a user
      */
     public static User login(String username, String password) {
-        List<User> users = getAllUsers();
-        
-        // Use Streams to find matching user
-        return users.stream()
-            .filter(u -> u.getUsername().equalsIgnoreCase(username))
-            .filter(u -> SecurityUtil.verifyPassword(password, u.getPasswordHash()))
-            .findFirst()
-            .orElse(null);
+        // Find matching user without copying the user list
+        return Repositories.USERS.findFirst(u -> u.getUsername().equalsIgnoreCase(username) &&
+                                                SecurityUtil.verifyPassword(password, u.getPasswordHash()));
     }
     
     /**
      * Get all users
      */
     public static List<User> getAllUsers() {
-        List<String> lines = FileService.readAllLines(FileService.USERS_FILE);
-        return lines.stream()
-            .map(User::fromFileString)
-            .filter(u -> u != null)
-            .collect(Collectors.toList());
+        return Repositories.USERS.findAll();
     }
     
     /**
      * Get user by ID
      */
     public static User getUserById(String id) {
-        return getAllUsers().stream()
-            .filter(u -> u.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        return Repositories.USERS.findById(id);
     }
     
     /**
      * Get user by username
      */
     public static User getUserByUsername(String username) {
-        return getAllUsers().stream()
-            .filter(u -> u.getUsername().equalsIgnoreCase(username))
-            .findFirst()
-            .orElse(null);
+        return Repositories.USERS.findFirst(u -> u.getUsername().equalsIgnoreCase(username));
     }
 }
 
@@ -1,12 +1,22 @@
 package com.airbnb.services;
 
 import com.airbnb.models.Booking;
+import com.airbnb.models.BookingRequest;
+import com.airbnb.models.BookingResult;
 import com.airbnb.models.Property;
+import com.airbnb.repository.Repositories;
+import com.airbnb.utils.ValidationUtil;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Booking service
@@ -14,76 +24,77 @@ import java.util.stream.Collectors;
  */
 public class BookingService {
     
+    // Striped per-property locks: the availability check and the insert happen atomically
+    // for one property, while bookings on properties in other stripes proceed in parallel
+    private static final int LOCK_STRIPES = 64;
+    private static final Object[] PROPERTY_LOCKS = new Object[LOCK_STRIPES];
+    
+    static {
+        for (int i = 0; i < LOCK_STRIPES; i++) {
+            PROPERTY_LOCKS[i] = new Object();
+        }
+    }
+    
+    /**
+     * Lock guarding availability changes of a property
+     */
+    private static Object lockFor(String propertyId) {
+        return PROPERTY_LOCKS[Math.floorMod(propertyId.hashCode(), LOCK_STRIPES)];
+    }
+    
     /**
      * Get all bookings
      */
     public static List<Booking> getAllBookings() {
-        List<String> lines = FileService.readAllLines(FileService.BOOKINGS_FILE);
-        return lines.stream()
-            .map(Booking::fromFileString)
-            .filter(b -> b != null)
-            .collect(Collectors.toList());
+        return Repositories.BOOKINGS.findAll();
     }
     
     /**
      * Get booking by ID
      */
     public static Booking getBookingById(String id) {
-        return getAllBookings().stream()
-            .filter(b -> b.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        return Repositories.BOOKINGS.findById(id);
     }
     
     /**
      * Get bookings by guest ID
      */
     public static List<Booking> getBookingsByGuestId(String guestId) {
-        return getAllBookings().stream()
-            .filter(b -> b.getGuestId().equals(guestId))
-            .collect(Collectors.toList());
+        return Repositories.BOOKINGS.findWhere(b -> b.getGuestId().equals(guestId));
     }
     
     /**
      * Get bookings for a property
      */
     public static List<Booking> getBookingsByPropertyId(String propertyId) {
-        return getAllBookings().stream()
-            .filter(b -> b.getPropertyId().equals(propertyId))
-            .collect(Collectors.toList());
+        return Repositories.BOOKINGS_BY_PROPERTY.find(propertyId);
     }
     
     /**
      * Get bookings for properties owned by a host
-     * Uses Streams with nested filtering
+     * Joins owner -> properties -> bookings through the in-memory indexes
      */
     public static List<Booking> getBookingsByHostId(String hostId) {
-        return getAllBookings().stream()
-            .filter(b -> {
-                Property property = PropertyService.getPropertyById(b.getPropertyId());
-                return property != null && property.getOwnerId().equals(hostId);
-            })
-            .collect(Collectors.toList());
+        return Repositories.BOOKINGS_BY_PROPERTY.findAll(Repositories.PROPERTIES_BY_OWNER.idsFor(hostId));
     }
     
     /**
      * Check if property is available for date range
+     * The host must have opened the dates, and no booking may hold them.
+     * Uses the in-memory availability index (no booking scan)
      */
     public static boolean isPropertyAvailable(String propertyId, LocalDate checkIn, LocalDate checkOut) {
-        Property property = PropertyService.getPropertyById(propertyId);
-        if (property == null) {
+        if (!ValidationUtil.isValidStay(checkIn, checkOut)) {
+            return false;
+        }
+        Property property = Repositories.PROPERTIES.findById(propertyId);
+        if (property == null || !property.isOpenBetween(checkIn, checkOut)) {
             return false;
         }
         
-        // Check existing bookings
-        List<Booking> bookings = getBookingsByPropertyId(propertyId);
-        return bookings.stream()
-            .filter(b -> "CONFIRMED".equals(b.getStatus()) || "PENDING".equals(b.getStatus()))
-            .noneMatch(b -> {
-                LocalDate bCheckIn = b.getCheckIn();
-                LocalDate bCheckOut = b.getCheckOut();
-                return !(checkOut.isBefore(bCheckIn) || checkIn.isAfter(bCheckOut));
-            });
+        // Check existing CONFIRMED/PENDING bookings
+        Repositories.BOOKINGS.ensureLoaded();
+        return !Repositories.AVAILABILITY.hasOverlap(propertyId, checkIn, checkOut);
     }
     
     /**
@@ -91,12 +102,11 @@ public class BookingService {
      */
     public static boolean createBooking(String propertyId, String guestId, 
                                        LocalDate checkIn, LocalDate checkOut) {
-        // Check availability
-        if (!isPropertyAvailable(propertyId, checkIn, checkOut)) {
+        // Also bounds the days the availability indexes have to mark
+        if (!ValidationUtil.isValidStay(checkIn, checkOut)) {
             return false;
         }
-        
-        Property property = PropertyService.getPropertyById(propertyId);
+        Property property = Repositories.PROPERTIES.findById(propertyId);
         if (property == null) {
             return false;
         }
@@ -110,34 +120,127 @@ public class BookingService {
         booking.calculateTotalPrice(property.getPrice());
         booking.setStatus("CONFIRMED");
         
-        FileService.appendLine(FileService.BOOKINGS_FILE, booking.toFileString());
-        return true;
+        // Check availability and claim the dates as one step for this property;
+        // insert updates the availability index before the lock is released
+        synchronized (lockFor(propertyId)) {
+            if (!isPropertyAvailable(propertyId, checkIn, checkOut)) {
+                return false;
+            }
+            // A failed write takes the booking back out, freeing the dates again
+            return Repositories.BOOKINGS.insert(booking);
+        }
+    }
+    
+    /**
+     * Create a batch of bookings in one availability pass and one write
+     * Each request is checked against the host's available dates, existing bookings and the requests
+     * accepted before it in the same batch. Accepted bookings are appended together;
+     * if that write fails, they are reported as FAILED instead of CREATED.
+     * @return one result per request, in request order
+     */
+    public static List<BookingResult> createBookings(List<BookingRequest> requests) {
+        BookingResult[] results = new BookingResult[requests.size()];
+        // Valid requests by position, in request order
+        Map<Integer, Property> properties = new LinkedHashMap<>();
+        TreeSet<Integer> stripes = new TreeSet<>();
+        
+        for (int i = 0; i < requests.size(); i++) {
+            BookingRequest request = requests.get(i);
+            Property property = Repositories.PROPERTIES.findById(request.getPropertyId());
+            if (property == null || !ValidationUtil.isValidStay(request.getCheckIn(), request.getCheckOut())) {
+                results[i] = new BookingResult(request, BookingResult.Status.INVALID, null);
+            } else {
+                properties.put(i, property);
+                stripes.add(Math.floorMod(property.getId().hashCode(), LOCK_STRIPES));
+            }
+        }
+        
+        Repositories.BOOKINGS.ensureLoaded();
+        // Stripes are taken in ascending order, so overlapping batches cannot deadlock
+        withStripes(stripes.iterator(), () -> {
+            Map<String, List<BookingRequest>> acceptedByProperty = new HashMap<>();
+            List<Booking> accepted = new ArrayList<>();
+            
+            for (Map.Entry<Integer, Property> entry : properties.entrySet()) {
+                BookingRequest request = requests.get(entry.getKey());
+                Property property = entry.getValue();
+                List<BookingRequest> sameProperty = acceptedByProperty.computeIfAbsent(property.getId(), id -> new ArrayList<>());
+                
+                if (!property.isOpenBetween(request.getCheckIn(), request.getCheckOut())) {
+                    results[entry.getKey()] = new BookingResult(request, BookingResult.Status.UNAVAILABLE, null);
+                    continue;
+                }
+                
+                boolean conflict = Repositories.AVAILABILITY.hasOverlap(property.getId(), request.getCheckIn(), request.getCheckOut())
+                    || sameProperty.stream().anyMatch(other -> !(request.getCheckOut().isBefore(other.getCheckIn()) ||
+                                                                 request.getCheckIn().isAfter(other.getCheckOut())));
+                if (conflict) {
+                    results[entry.getKey()] = new BookingResult(request, BookingResult.Status.CONFLICT, null);
+                    continue;
+                }
+                
+                Booking booking = new Booking();
+                booking.setId(UUID.randomUUID().toString());
+                booking.setPropertyId(property.getId());
+                booking.setGuestId(request.getGuestId());
+                booking.setCheckIn(request.getCheckIn());
+                booking.setCheckOut(request.getCheckOut());
+                booking.calculateTotalPrice(property.getPrice());
+                booking.setStatus("CONFIRMED");
+                
+                sameProperty.add(request);
+                accepted.add(booking);
+                results[entry.getKey()] = new BookingResult(request, BookingResult.Status.CREATED, booking);
+            }
+            
+            // One append for the whole batch; the index is updated before the locks are released
+            if (!Repositories.BOOKINGS.insertAll(accepted)) {
+                for (int i = 0; i < results.length; i++) {
+                    if (results[i].isCreated()) {
+                        results[i] = new BookingResult(results[i].getRequest(), BookingResult.Status.FAILED, null);
+                    }
+                }
+            }
+        });
+        
+        return Arrays.asList(results);
+    }
+    
+    /**
+     * Run an action while holding the given lock stripes (taken in iteration order)
+     */
+    private static void withStripes(Iterator<Integer> stripes, Runnable action) {
+        if (!stripes.hasNext()) {
+            action.run();
+            return;
+        }
+        synchronized (PROPERTY_LOCKS[stripes.next()]) {
+            withStripes(stripes, action);
+        }
     }
     
     /**
      * Update booking status
      */
     public static boolean updateBooking(Booking booking) {
-        return FileService.updateLineById(FileService.BOOKINGS_FILE, 
-                                         booking.getId(), 
-                                         booking.toFileString());
+        // Status changes free or claim dates, so they take the property's lock too
+        synchronized (lockFor(booking.getPropertyId())) {
+            return Repositories.BOOKINGS.update(booking);
+        }
     }
     
     /**
      * Delete booking
      */
     public static boolean deleteBooking(String id) {
-        return FileService.deleteLineById(FileService.BOOKINGS_FILE, id);
+        return Repositories.BOOKINGS.delete(id);
     }
     
     /**
      * Delete all bookings for a property (when property is deleted)
      */
     public static void deleteBookingsByPropertyId(String propertyId) {
-        List<Booking> bookings = getBookingsByPropertyId(propertyId);
-        for (Booking booking : bookings) {
-            deleteBooking(booking.getId());
-        }
+        Repositories.BOOKINGS.deleteWhere(b -> b.getPropertyId().equals(propertyId));
     }
 }
 
@@ -0,0 +1,124 @@
+package com.airbnb.services;
+
+import com.airbnb.models.Booking;
+import com.airbnb.models.Message;
+import com.airbnb.models.Review;
+import com.airbnb.repository.Repositories;
+
+import java.util.LinkedHashSet;
+import java.util.Set;
+
+/**
+ * Cascade delete planner
+ * Collects every record affected by deleting a user or a property
+ * (user -> properties -> bookings/reviews/messages), then removes them with
+ * one bulk write per data file instead of one write per record.
+ */
+public class CascadeDeleteService {
+
+    /**
+     * IDs to delete from each data file
+     */
+    public static class DeletePlan {
+        private final Set<String> userIds = new LinkedHashSet<>();
+        private final Set<String> propertyIds = new LinkedHashSet<>();
+        private final Set<String> bookingIds = new LinkedHashSet<>();
+        private final Set<String> reviewIds = new LinkedHashSet<>();
+        private final Set<String> messageIds = new LinkedHashSet<>();
+        // Properties that survive but lose reviews, and need their rating recalculated
+        private final Set<String> ratingsToRecalculate = new LinkedHashSet<>();
+
+        public Set<String> getUserIds() {
+            return userIds;
+        }
+
+        public Set<String> getPropertyIds() {
+            return propertyIds;
+        }
+
+        public Set<String> getBookingIds() {
+            return bookingIds;
+        }
+
+        public Set<String> getReviewIds() {
+            return reviewIds;
+        }
+
+        public Set<String> getMessageIds() {
+            return messageIds;
+        }
+
+        public Set<String> getRatingsToRecalculate() {
+            return ratingsToRecalculate;
+        }
+
+        public boolean isEmpty() {
+            return userIds.isEmpty() && propertyIds.isEmpty() && bookingIds.isEmpty()
+                && reviewIds.isEmpty() && messageIds.isEmpty();
+        }
+    }
+
+    /**
+     * Plan the deletion of a user with their properties, bookings, reviews and messages
+     */
+    public static DeletePlan planUserDelete(String userId) {
+        DeletePlan plan = new DeletePlan();
+        if (Repositories.USERS.findById(userId) == null) {
+            return plan;
+        }
+        plan.userIds.add(userId);
+        plan.propertyIds.addAll(Repositories.PROPERTIES_BY_OWNER.idsFor(userId));
+
+        // One pass over each child file covers every property at once
+        for (Booking booking : Repositories.BOOKINGS.findWhere(b -> b.getGuestId().equals(userId) ||
+                                                                    plan.propertyIds.contains(b.getPropertyId()))) {
+            plan.bookingIds.add(booking.getId());
+        }
+        for (Review review : Repositories.REVIEWS.findWhere(r -> r.getUserId().equals(userId) ||
+                                                                 plan.propertyIds.contains(r.getPropertyId()))) {
+            plan.reviewIds.add(review.getId());
+            if (!plan.propertyIds.contains(review.getPropertyId())) {
+                plan.ratingsToRecalculate.add(review.getPropertyId());
+            }
+        }
+        for (Message message : Repositories.MESSAGES.findWhere(m -> m.getSenderId().equals(userId) ||
+                                                                    m.getReceiverId().equals(userId))) {
+            plan.messageIds.add(message.getId());
+        }
+        return plan;
+    }
+
+    /**
+     * Plan the deletion of a property with its bookings and reviews
+     */
+    public static DeletePlan planPropertyDelete(String propertyId) {
+        DeletePlan plan = new DeletePlan();
+        if (Repositories.PROPERTIES.findById(propertyId) == null) {
+            return plan;
+        }
+        plan.propertyIds.add(propertyId);
+        plan.bookingIds.addAll(Repositories.BOOKINGS_BY_PROPERTY.idsFor(propertyId));
+        plan.reviewIds.addAll(Repositories.REVIEWS_BY_PROPERTY.idsFor(propertyId));
+        return plan;
+    }
+
+    /**
+     * Execute a plan: children are removed before their parents, one write per file
+     * @return true if anything was deleted
+     */
+    public static boolean execute(DeletePlan plan) {
+        if (plan.isEmpty()) {
+            return false;
+        }
+        Repositories.BOOKINGS.deleteAll(plan.bookingIds);
+        Repositories.REVIEWS.deleteAll(plan.reviewIds);
+        Repositories.MESSAGES.deleteAll(plan.messageIds);
+        Repositories.PROPERTIES.deleteAll(plan.propertyIds);
+        Repositories.USERS.deleteAll(plan.userIds);
+
+        for (String propertyId : plan.ratingsToRecalculate) {
+            PropertyService.recalculateRating(propertyId);
+        }
+        return true;
+    }
+}
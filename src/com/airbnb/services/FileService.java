@@ -1,9 +1,24 @@
 package com.airbnb.services;
 
+import com.airbnb.storage.AtomicFileWriter;
+import com.airbnb.storage.GroupCommitWriter;
+import com.airbnb.storage.LogCompactor;
+import com.airbnb.storage.MappedRecordReader;
+import com.airbnb.storage.OffsetIndex;
+import com.airbnb.storage.ParallelRecordLoader;
+import com.airbnb.storage.RecordLog;
+import com.airbnb.utils.RecordTokenizer;
+
 import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 
 /**
  * File service for managing data directory and file operations
@@ -18,6 +33,13 @@ public class FileService {
     public static final String REVIEWS_FILE = DATA_DIR + "/reviews.txt";
     public static final String MESSAGES_FILE = DATA_DIR + "/messages.txt";
     
+    // "log" (default): updates/deletes are appended; "rewrite": rewrite the whole file per change
+    private static final boolean APPEND_LOG =
+        !"rewrite".equalsIgnoreCase(System.getProperty("airbnb.storage.mode", "log"));
+    
+    private static final int LINE_SEPARATOR_BYTES =
+        System.lineSeparator().getBytes(StandardCharsets.UTF_8).length;
+    
     /**
      * Initialize data directory and create files if they don't exist
      */
@@ -34,6 +56,10 @@ public class FileService {
             createFileIfNotExists(BOOKINGS_FILE);
             createFileIfNotExists(REVIEWS_FILE);
             createFileIfNotExists(MESSAGES_FILE);
+            
+            if (APPEND_LOG) {
+                LogCompactor.start();
+            }
         } catch (IOException e) {
             System.err.println("Error initializing data directory: " + e.getMessage());
         }
@@ -57,29 +83,338 @@ public class FileService {
      * Read all lines from a file
      */
     public static java.util.List<String> readAllLines(String filePath) {
+        synchronized (RecordLog.of(filePath)) {
+            return readRawLines(filePath);
+        }
+    }
+    
+    private static java.util.List<String> readRawLines(String filePath) {
+        GroupCommitWriter.of(filePath).flush();
         java.util.List<String> lines = new java.util.ArrayList<>();
-        try (BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
-            String line;
-            while ((line = reader.readLine()) != null) {
-                if (!line.trim().isEmpty()) {
-                    lines.add(line);
-                }
-            }
+        try (MappedRecordReader reader = new MappedRecordReader(filePath)) {
+            reader.forEach(record -> lines.add(record.line()));
         } catch (IOException e) {
             System.err.println("Error reading file " + filePath + ": " + e.getMessage());
         }
         return lines;
     }
     
+    /**
+     * Read the live records of a file
+     * Resolves appended versions and tombstones: the last version of each ID wins.
+     * Only IDs are decoded while resolving; superseded versions are never decoded.
+     */
+    public static java.util.List<String> readLiveLines(String filePath) {
+        return readLiveRecords(filePath, line -> line);
+    }
+    
+    /**
+     * Read and parse the live records of a file, in file order
+     * Large files are scanned and parsed in parallel chunks.
+     */
+    public static <T> java.util.List<T> readLiveRecords(String filePath, java.util.function.Function<String, T> parser) {
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            GroupCommitWriter.of(filePath).flush();
+            try (MappedRecordReader reader = new MappedRecordReader(filePath)) {
+                return ParallelRecordLoader.loadLive(reader, parser, log);
+            } catch (IOException e) {
+                System.err.println("Error reading file " + filePath + ": " + e.getMessage());
+                return new java.util.ArrayList<>();
+            }
+        }
+    }
+    
+    /**
+     * Read the live line for an ID using the offset index (no file scan)
+     */
+    public static String readLineById(String filePath, String id) {
+        synchronized (RecordLog.of(filePath)) {
+            long[] entry = OffsetIndex.of(filePath).get(id);
+            if (entry == null) {
+                return null;
+            }
+            GroupCommitWriter.of(filePath).flush();
+            try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+                ByteBuffer buffer = ByteBuffer.allocate((int) entry[1]);
+                while (buffer.hasRemaining()) {
+                    if (channel.read(buffer, entry[0] + buffer.position()) < 0) {
+                        break;
+                    }
+                }
+                return new String(buffer.array(), 0, buffer.position(), StandardCharsets.UTF_8);
+            } catch (IOException e) {
+                System.err.println("Error reading file " + filePath + ": " + e.getMessage());
+                return null;
+            }
+        }
+    }
+    
     /**
      * Write a line to a file (append mode)
+     * Waits until the group-commit batch holding the line has been written
      */
     public static void appendLine(String filePath, String line) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, true))) {
-            writer.write(line);
-            writer.newLine();
+        awaitWrite(filePath, appendLineAsync(filePath, line));
+    }
+    
+    /**
+     * Queue a line for appending without waiting for it to be written
+     * @return a future that completes once the line is durable
+     */
+    public static CompletableFuture<Void> appendLineAsync(String filePath, String line) {
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            CompletableFuture<Void> written = writeLine(filePath, line);
+            log.recordAppend();
+            return written;
+        }
+    }
+    
+    /**
+     * Queue several lines as one append (one group-commit write) without waiting for it
+     * @return a future that completes once all lines are durable
+     */
+    public static CompletableFuture<Void> appendLinesAsync(String filePath, java.util.List<String> lines) {
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            CompletableFuture<Void> written = queueLines(filePath, lines);
+            for (int i = 0; i < lines.size(); i++) {
+                log.recordAppend();
+            }
+            return written;
+        }
+    }
+    
+    /**
+     * Queue several lines as one group-commit append and record their positions in the offset index
+     */
+    private static CompletableFuture<Void> queueLines(String filePath, java.util.List<String> lines) {
+        GroupCommitWriter writer = GroupCommitWriter.of(filePath);
+        OffsetIndex index = OffsetIndex.of(filePath);
+        long offset;
+        try {
+            offset = writer.endOffset();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        StringBuilder batch = new StringBuilder();
+        for (String line : lines) {
+            long length = line.getBytes(StandardCharsets.UTF_8).length;
+            batch.append(line).append(System.lineSeparator());
+            index.put(RecordLog.idOf(line), offset, length);
+            offset += length + LINE_SEPARATOR_BYTES;
+        }
+        return invalidateOnFailure(index, writer.append(batch.toString().getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Index entries are recorded when lines are queued; if their batch is never written,
+     * the index is rebuilt from the file instead of pointing past its end
+     */
+    private static CompletableFuture<Void> invalidateOnFailure(OffsetIndex index, CompletableFuture<Void> written) {
+        written.whenComplete((done, error) -> {
+            if (error != null) {
+                index.invalidate();
+            }
+        });
+        return written;
+    }
+    
+    /**
+     * Wait for a queued write; returns false if it failed
+     */
+    public static boolean awaitWrite(String filePath, CompletableFuture<Void> written) {
+        try {
+            written.join();
+            return true;
+        } catch (CompletionException e) {
+            System.err.println("Error writing to file " + filePath + ": " + e.getCause().getMessage());
+            return false;
+        }
+    }
+    
+    /**
+     * Queue one line on the file's group-commit writer and record its position in the offset index
+     */
+    private static CompletableFuture<Void> writeLine(String filePath, String line) {
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        GroupCommitWriter writer = GroupCommitWriter.of(filePath);
+        OffsetIndex index = OffsetIndex.of(filePath);
+        long offset;
+        try {
+            offset = writer.endOffset();
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        if (RecordLog.isTombstone(line)) {
+            index.remove(RecordLog.idOf(line));
+        } else {
+            index.put(RecordLog.idOf(line), offset, bytes.length);
+        }
+        return invalidateOnFailure(index, writer.append((line + System.lineSeparator()).getBytes(StandardCharsets.UTF_8)));
+    }
+    
+    /**
+     * Overwrite a record of the same byte length where it is (e.g. a booking status change)
+     */
+    private static boolean writeInPlace(String filePath, long[] entry, String newLine) {
+        byte[] bytes = newLine.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length != entry[1]) {
+            return false;
+        }
+        return overwrite(filePath, java.util.Collections.singletonMap(entry[0], bytes));
+    }
+    
+    /**
+     * Overwrite same-length records through the file's writer, so they get its durability mode
+     */
+    private static boolean overwrite(String filePath, java.util.Map<Long, byte[]> writes) {
+        try {
+            GroupCommitWriter.of(filePath).overwrite(writes);
         } catch (IOException e) {
             System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+            return false;
+        }
+        // Offsets are unchanged, but the sidecar header must be refreshed for the new modification time
+        OffsetIndex.of(filePath).markChanged();
+        return true;
+    }
+    
+    /**
+     * Persist a new version of an existing record
+     * Same-length records are overwritten in place; otherwise in log mode the
+     * version is appended, and in rewrite mode the file is rewritten
+     */
+    public static boolean putRecord(String filePath, String id, String newLine) {
+        RecordLog log = RecordLog.of(filePath);
+        CompletableFuture<Void> written;
+        synchronized (log) {
+            long[] entry = OffsetIndex.of(filePath).get(id);
+            if (entry == null) {
+                return false;
+            }
+            if (writeInPlace(filePath, entry, newLine)) {
+                return true;
+            }
+            if (!APPEND_LOG) {
+                return updateLine(log, filePath, id, newLine);
+            }
+            written = writeLine(filePath, newLine);
+            log.recordUpdate();
+        }
+        return awaitWrite(filePath, written);
+    }
+    
+    /**
+     * Persist new versions of several existing records with a single write
+     * Same-length records are overwritten in place with one write; the rest are
+     * appended as one batch in log mode, or applied in one rewrite in rewrite mode
+     * @return the number of records written
+     */
+    public static int putRecords(String filePath, java.util.Map<String, String> linesById) {
+        RecordLog log = RecordLog.of(filePath);
+        CompletableFuture<Void> written;
+        java.util.Map<String, String> remaining = new java.util.LinkedHashMap<>();
+        java.util.Map<Long, byte[]> writes = new java.util.LinkedHashMap<>();
+        int inPlace = 0;
+        synchronized (log) {
+            OffsetIndex index = OffsetIndex.of(filePath);
+            for (java.util.Map.Entry<String, String> record : linesById.entrySet()) {
+                long[] entry = index.get(record.getKey());
+                if (entry == null) {
+                    continue;
+                }
+                byte[] bytes = record.getValue().getBytes(StandardCharsets.UTF_8);
+                if (bytes.length != entry[1]) {
+                    remaining.put(record.getKey(), record.getValue());
+                    continue;
+                }
+                writes.put(entry[0], bytes);
+            }
+            if (!writes.isEmpty()) {
+                if (!overwrite(filePath, writes)) {
+                    return 0;
+                }
+                inPlace = writes.size();
+            }
+            if (remaining.isEmpty()) {
+                return inPlace;
+            }
+            if (!APPEND_LOG) {
+                return inPlace + updateLines(log, filePath, remaining);
+            }
+            written = queueLines(filePath, new java.util.ArrayList<>(remaining.values()));
+            for (int i = 0; i < remaining.size(); i++) {
+                log.recordUpdate();
+            }
+        }
+        return awaitWrite(filePath, written) ? inPlace + remaining.size() : inPlace;
+    }
+    
+    /**
+     * Remove an existing record
+     * In log mode a tombstone is appended; otherwise the line is deleted from the file
+     */
+    public static boolean removeRecord(String filePath, String id) {
+        RecordLog log = RecordLog.of(filePath);
+        CompletableFuture<Void> written;
+        synchronized (log) {
+            if (!OffsetIndex.of(filePath).contains(id)) {
+                return false;
+            }
+            if (!APPEND_LOG) {
+                return deleteLine(log, filePath, id);
+            }
+            written = writeLine(filePath, RecordLog.tombstone(id));
+            log.recordDelete();
+        }
+        return awaitWrite(filePath, written);
+    }
+    
+    /**
+     * Remove a set of records with a single write
+     * In log mode all tombstones are appended as one batch; otherwise the file is rewritten once
+     * @return the number of records removed
+     */
+    public static int removeRecords(String filePath, java.util.Collection<String> ids) {
+        RecordLog log = RecordLog.of(filePath);
+        CompletableFuture<Void> written;
+        java.util.List<String> removed = new java.util.ArrayList<>();
+        synchronized (log) {
+            OffsetIndex index = OffsetIndex.of(filePath);
+            for (String id : ids) {
+                if (index.contains(id)) {
+                    removed.add(id);
+                }
+            }
+            if (removed.isEmpty()) {
+                return 0;
+            }
+            if (!APPEND_LOG) {
+                return deleteLines(log, filePath, new java.util.HashSet<>(removed));
+            }
+            StringBuilder tombstones = new StringBuilder();
+            for (String id : removed) {
+                tombstones.append(RecordLog.tombstone(id)).append(System.lineSeparator());
+                index.remove(id);
+                log.recordDelete();
+            }
+            written = invalidateOnFailure(index, GroupCommitWriter.of(filePath).append(tombstones.toString().getBytes(StandardCharsets.UTF_8)));
+        }
+        return awaitWrite(filePath, written) ? removed.size() : 0;
+    }
+    
+    /**
+     * Rewrite a file with only its live records, dropping old versions and tombstones
+     */
+    public static void compact(String filePath) {
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            java.util.List<String> live = log.resolve(readRawLines(filePath));
+            if (writeLines(filePath, live)) {
+                log.reset(live.size());
+            }
         }
     }
     
@@ -87,50 +422,120 @@ public class FileService {
      * Write all lines to a file (overwrite mode)
      */
     public static void writeAllLines(String filePath, java.util.List<String> lines) {
-        try (BufferedWriter writer = new BufferedWriter(new FileWriter(filePath, false))) {
+        synchronized (RecordLog.of(filePath)) {
+            writeLines(filePath, lines);
+        }
+    }
+    
+    private static boolean writeLines(String filePath, java.util.List<String> lines) {
+        // Release the appender's channel; it reopens on the new file after the rewrite
+        GroupCommitWriter.of(filePath).close();
+        java.util.Map<String, long[]> entries = new java.util.HashMap<>();
+        long offset = 0;
+        // Written to a temp file and renamed over the original, so a crash never leaves a partial file
+        try (AtomicFileWriter out = new AtomicFileWriter(filePath)) {
+            BufferedWriter writer = out.writer();
             for (String line : lines) {
                 writer.write(line);
                 writer.newLine();
+                
+                // Rebuild the offset index as we go
+                long length = line.getBytes(StandardCharsets.UTF_8).length;
+                if (RecordLog.isTombstone(line)) {
+                    entries.remove(RecordLog.idOf(line));
+                } else {
+                    entries.put(RecordLog.idOf(line), new long[] {offset, length});
+                }
+                offset += length + LINE_SEPARATOR_BYTES;
             }
+            out.commit();
         } catch (IOException e) {
+            // The original file is untouched, so its index is still valid
             System.err.println("Error writing to file " + filePath + ": " + e.getMessage());
+            return false;
         }
+        OffsetIndex.of(filePath).replaceAll(entries);
+        return true;
     }
     
     /**
      * Delete a line from a file by ID (first field)
      */
     public static boolean deleteLineById(String filePath, String id) {
-        java.util.List<String> lines = readAllLines(filePath);
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            return deleteLine(log, filePath, id);
+        }
+    }
+    
+    private static boolean deleteLine(RecordLog log, String filePath, String id) {
+        if (!OffsetIndex.of(filePath).contains(id)) {
+            return false;
+        }
+        java.util.List<String> lines = log.resolve(readRawLines(filePath));
         java.util.List<String> updatedLines = new java.util.ArrayList<>();
         boolean found = false;
         
         for (String line : lines) {
-            String[] parts = line.split("\\|");
-            if (parts.length > 0 && !parts[0].equals(id)) {
+            if (!RecordTokenizer.idEquals(line, id)) {
                 updatedLines.add(line);
             } else {
                 found = true;
             }
         }
         
-        if (found) {
-            writeAllLines(filePath, updatedLines);
+        if (found && writeLines(filePath, updatedLines)) {
+            log.reset(updatedLines.size());
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Delete every line whose ID is in the set, rewriting the file once
+     */
+    private static int deleteLines(RecordLog log, String filePath, java.util.Set<String> ids) {
+        java.util.List<String> lines = log.resolve(readRawLines(filePath));
+        java.util.List<String> updatedLines = new java.util.ArrayList<>();
+        
+        for (String line : lines) {
+            if (!ids.contains(RecordLog.idOf(line))) {
+                updatedLines.add(line);
+            }
+        }
+        
+        int removed = lines.size() - updatedLines.size();
+        if (removed > 0 && writeLines(filePath, updatedLines)) {
+            log.reset(updatedLines.size());
+            return removed;
         }
-        return found;
+        return 0;
     }
     
     /**
      * Update a line in a file by ID
      */
     public static boolean updateLineById(String filePath, String id, String newLine) {
-        java.util.List<String> lines = readAllLines(filePath);
+        RecordLog log = RecordLog.of(filePath);
+        synchronized (log) {
+            return updateLine(log, filePath, id, newLine);
+        }
+    }
+    
+    private static boolean updateLine(RecordLog log, String filePath, String id, String newLine) {
+        long[] entry = OffsetIndex.of(filePath).get(id);
+        if (entry == null) {
+            return false;
+        }
+        if (writeInPlace(filePath, entry, newLine)) {
+            return true;
+        }
+        java.util.List<String> lines = log.resolve(readRawLines(filePath));
         java.util.List<String> updatedLines = new java.util.ArrayList<>();
         boolean found = false;
         
         for (String line : lines) {
-            String[] parts = line.split("\\|");
-            if (parts.length > 0 && parts[0].equals(id)) {
+            if (RecordTokenizer.idEquals(line, id)) {
                 updatedLines.add(newLine);
                 found = true;
             } else {
@@ -138,10 +543,36 @@ public class FileService {
             }
         }
         
-        if (found) {
-            writeAllLines(filePath, updatedLines);
+        if (found && writeLines(filePath, updatedLines)) {
+            log.reset(updatedLines.size());
+            return true;
+        }
+        return false;
+    }
+    
+    /**
+     * Replace every line whose ID is in the map, rewriting the file once
+     */
+    private static int updateLines(RecordLog log, String filePath, java.util.Map<String, String> linesById) {
+        java.util.List<String> lines = log.resolve(readRawLines(filePath));
+        java.util.List<String> updatedLines = new java.util.ArrayList<>();
+        int updated = 0;
+        
+        for (String line : lines) {
+            String newLine = linesById.get(RecordLog.idOf(line));
+            if (newLine != null) {
+                updatedLines.add(newLine);
+                updated++;
+            } else {
+                updatedLines.add(line);
+            }
+        }
+        
+        if (updated > 0 && writeLines(filePath, updatedLines)) {
+            log.reset(updatedLines.size());
+            return updated;
         }
-        return found;
+        return 0;
     }
 }
 
@@ -3,9 +3,9 @@ package com.airbnb.services;
 import com.airbnb.models.Booking;
 import com.airbnb.models.Property;
 import com.airbnb.models.Review;
+import com.airbnb.repository.Repositories;
 
 import java.util.List;
-import java.util.stream.Collectors;
 
 /**
  * Host service
@@ -18,9 +18,7 @@ public class HostService {
      * Uses Streams for filtering
      */
     public static List<Property> getMyProperties(String hostId) {
-        return PropertyService.getAllProperties().stream()
-            .filter(p -> p.getOwnerId().equals(hostId))
-            .collect(Collectors.toList());
+        return PropertyService.getPropertiesByOwnerId(hostId);
     }
     
     /**
@@ -28,27 +26,15 @@ public class HostService {
      * Uses Streams with nested filtering
      */
     public static List<Booking> getMyBookings(String hostId) {
-        return BookingService.getAllBookings().stream()
-            .filter(b -> {
-                Property property = PropertyService.getPropertyById(b.getPropertyId());
-                return property != null && property.getOwnerId().equals(hostId);
-            })
-            .collect(Collectors.toList());
+        return BookingService.getBookingsByHostId(hostId);
     }
     
     /**
      * Get reviews for properties owned by a host
-     * Uses Streams with nested filtering
+     * Joins owner -> properties -> reviews through the in-memory indexes
      */
     public static List<Review> getMyReviews(String hostId) {
-        List<Property> myProperties = getMyProperties(hostId);
-        List<String> propertyIds = myProperties.stream()
-            .map(Property::getId)
-            .collect(Collectors.toList());
-        
-        return ReviewService.getAllReviews().stream()
-            .filter(r -> propertyIds.contains(r.getPropertyId()))
-            .collect(Collectors.toList());
+        return Repositories.REVIEWS_BY_PROPERTY.findAll(Repositories.PROPERTIES_BY_OWNER.idsFor(hostId));
     }
     
     /**
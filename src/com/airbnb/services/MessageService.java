@@ -1,6 +1,7 @@
 package com.airbnb.services;
 
 import com.airbnb.models.Message;
+import com.airbnb.repository.Repositories;
 
 import java.util.List;
 import java.util.UUID;
@@ -16,20 +17,17 @@ public class MessageService {
      * Get all messages
      */
     public static List<Message> getAllMessages() {
-        List<String> lines = FileService.readAllLines(FileService.MESSAGES_FILE);
-        return lines.stream()
-            .map(Message::fromFileString)
-            .filter(m -> m != null)
-            .collect(Collectors.toList());
+        return Repositories.MESSAGES.findAll();
     }
     
     /**
      * Get messages between two users
      */
     public static List<Message> getMessagesBetweenUsers(String userId1, String userId2) {
-        return getAllMessages().stream()
-            .filter(m -> (m.getSenderId().equals(userId1) && m.getReceiverId().equals(userId2)) ||
-                        (m.getSenderId().equals(userId2) && m.getReceiverId().equals(userId1)))
+        return Repositories.MESSAGES.findWhere(m -> 
+                (m.getSenderId().equals(userId1) && m.getReceiverId().equals(userId2)) ||
+                (m.getSenderId().equals(userId2) && m.getReceiverId().equals(userId1)))
+            .stream()
             .sorted((m1, m2) -> m1.getTimestamp().compareTo(m2.getTimestamp()))
             .collect(Collectors.toList());
     }
@@ -38,8 +36,8 @@ public class MessageService {
      * Get messages for a user (both sent and received)
      */
     public static List<Message> getMessagesForUser(String userId) {
-        return getAllMessages().stream()
-            .filter(m -> m.getSenderId().equals(userId) || m.getReceiverId().equals(userId))
+        return Repositories.MESSAGES.findWhere(m -> m.getSenderId().equals(userId) || m.getReceiverId().equals(userId))
+            .stream()
             .sorted((m1, m2) -> m2.getTimestamp().compareTo(m1.getTimestamp())) // Most recent first
             .collect(Collectors.toList());
     }
@@ -48,8 +46,8 @@ public class MessageService {
      * Get unread messages for a user
      */
     public static List<Message> getUnreadMessages(String userId) {
-        return getAllMessages().stream()
-            .filter(m -> m.getReceiverId().equals(userId) && !m.isRead())
+        return Repositories.MESSAGES.findWhere(m -> m.getReceiverId().equals(userId) && !m.isRead())
+            .stream()
             .sorted((m1, m2) -> m2.getTimestamp().compareTo(m1.getTimestamp()))
             .collect(Collectors.toList());
     }
@@ -64,7 +62,7 @@ public class MessageService {
         message.setReceiverId(receiverId);
         message.setContent(content);
         
-        FileService.appendLine(FileService.MESSAGES_FILE, message.toFileString());
+        Repositories.MESSAGES.insert(message);
         return true;
     }
     
@@ -72,16 +70,11 @@ public class MessageService {
      * Mark message as read
      */
     public static boolean markAsRead(String messageId) {
-        Message message = getAllMessages().stream()
-            .filter(m -> m.getId().equals(messageId))
-            .findFirst()
-            .orElse(null);
+        Message message = Repositories.MESSAGES.findById(messageId);
         
         if (message != null) {
             message.setRead(true);
-            return FileService.updateLineById(FileService.MESSAGES_FILE, 
-                                            messageId, 
-                                            message.toFileString());
+            return Repositories.MESSAGES.update(message);
         }
         return false;
     }
@@ -1,11 +1,14 @@
 package com.airbnb.services;
 
 import com.airbnb.models.Property;
-import com.airbnb.models.Review;
+import com.airbnb.models.PropertyPage;
+import com.airbnb.models.PropertyQuery;
+import com.airbnb.repository.Repositories;
 
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Property service
@@ -17,19 +20,16 @@ public class PropertyService {
      * Get all properties
      */
     public static List<Property> getAllProperties() {
-        List<String> lines = FileService.readAllLines(FileService.LISTINGS_FILE);
-        List<Property> properties = lines.stream()
-            .map(Property::fromFileString)
-            .filter(p -> p != null)
-            .collect(Collectors.toList());
-        
-        // Load reviews for each property to calculate ratings
+        return applyRatings(Repositories.PROPERTIES.findAll());
+    }
+    
+    /**
+     * Set each property's rating from the maintained aggregates (no reviews are loaded)
+     */
+    static List<Property> applyRatings(List<Property> properties) {
         for (Property property : properties) {
-            List<Review> reviews = ReviewService.getReviewsByPropertyId(property.getId());
-            property.setReviews(reviews);
-            property.calculateAverageRating();
+            property.setAverageRating(Repositories.RATINGS.average(property.getId()));
         }
-        
         return properties;
     }
     
@@ -37,32 +37,64 @@ public class PropertyService {
      * Get property by ID
      */
     public static Property getPropertyById(String id) {
-        return getAllProperties().stream()
-            .filter(p -> p.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        Property property = Repositories.PROPERTIES.findById(id);
+        if (property != null) {
+            property.setAverageRating(Repositories.RATINGS.average(id));
+        }
+        return property;
     }
     
     /**
      * Get properties by owner ID
      */
     public static List<Property> getPropertiesByOwnerId(String ownerId) {
-        return getAllProperties().stream()
-            .filter(p -> p.getOwnerId().equals(ownerId))
-            .collect(Collectors.toList());
+        return applyRatings(Repositories.PROPERTIES_BY_OWNER.find(ownerId));
     }
     
     /**
      * Search properties by location, price range, and rating
-     * Uses Java Streams for filtering
      */
     public static List<Property> searchProperties(String location, Double maxPrice, Double minRating) {
-        return getAllProperties().stream()
-            .filter(p -> location == null || location.isEmpty() || 
-                        p.getLocation().toLowerCase().contains(location.toLowerCase()))
-            .filter(p -> maxPrice == null || p.getPrice() <= maxPrice)
-            .filter(p -> minRating == null || p.getAverageRating() >= minRating)
-            .collect(Collectors.toList());
+        return searchProperties(location, maxPrice, minRating, null, null);
+    }
+    
+    /**
+     * Search properties by location, price range, rating and availability
+     * When both dates are given, only properties the host has opened and that are
+     * free for the whole stay are returned.
+     */
+    public static List<Property> searchProperties(String location, Double maxPrice, Double minRating,
+                                                  LocalDate checkIn, LocalDate checkOut) {
+        return searchProperties(new PropertyQuery(location, maxPrice, minRating, checkIn, checkOut));
+    }
+    
+    /**
+     * Search properties matching every criterion of a query
+     * The query planner picks the most selective index to start from; see {@link SearchPlanner}
+     */
+    public static List<Property> searchProperties(PropertyQuery query) {
+        return SearchPlanner.execute(query).getResults();
+    }
+    
+    /**
+     * Get one page of the properties matching a query, in the query's sort order
+     * @param cursor null for the first page, else {@link PropertyPage#getNextCursor()} of the previous page
+     */
+    public static PropertyPage searchPage(PropertyQuery query, int pageSize, String cursor) {
+        SearchPlanner.Plan plan = SearchPlanner.executePage(query, pageSize, cursor);
+        return new PropertyPage(plan.getResults(), plan.getNextCursor());
+    }
+    
+    /**
+     * Search properties by keywords in their title and description
+     * Results are ranked by relevance (BM25), best first
+     * @param limit maximum number of results
+     */
+    public static List<Property> searchByKeywords(String keywords, int limit) {
+        if (keywords == null || keywords.trim().isEmpty()) {
+            return new ArrayList<>();
+        }
+        return applyRatings(Repositories.PROPERTIES.findByIds(Repositories.TEXT.search(keywords, limit)));
     }
     
     /**
@@ -72,7 +104,7 @@ public class PropertyService {
         if (property.getId() == null || property.getId().isEmpty()) {
             property.setId(UUID.randomUUID().toString());
         }
-        FileService.appendLine(FileService.LISTINGS_FILE, property.toFileString());
+        Repositories.PROPERTIES.insert(property);
         return true;
     }
     
@@ -80,26 +112,22 @@ public class PropertyService {
      * Update a property
      */
     public static boolean updateProperty(Property property) {
-        return FileService.updateLineById(FileService.LISTINGS_FILE, 
-                                         property.getId(), 
-                                         property.toFileString());
+        return Repositories.PROPERTIES.update(property);
     }
     
     /**
      * Delete a property
      */
     public static boolean deleteProperty(String id) {
-        // Also delete associated reviews and bookings
-        ReviewService.deleteReviewsByPropertyId(id);
-        BookingService.deleteBookingsByPropertyId(id);
-        return FileService.deleteLineById(FileService.LISTINGS_FILE, id);
+        // Also delete associated reviews and bookings (one write per file)
+        return CascadeDeleteService.execute(CascadeDeleteService.planPropertyDelete(id));
     }
     
     /**
      * Update property rating (called automatically when review is added)
      */
     public static void updateRating(String propertyId, double averageRating) {
-        Property property = getPropertyById(propertyId);
+        Property property = Repositories.PROPERTIES.findById(propertyId);
         if (property != null) {
             property.setAverageRating(averageRating);
             updateProperty(property);
@@ -111,12 +139,14 @@ public class PropertyService {
      * This is called after adding a new review
      */
     public static void recalculateRating(String propertyId) {
-        Property property = getPropertyById(propertyId);
+        // The rating is held on the loaded record until it is written back
+        Repositories.PROPERTIES.ensureLoaded();
+        Property property = Repositories.PROPERTIES.findById(propertyId);
         if (property != null) {
-            List<Review> reviews = ReviewService.getReviewsByPropertyId(propertyId);
-            property.setReviews(reviews);
-            property.calculateAverageRating();
-            updateProperty(property);
+            // The aggregate already reflects the review change; reads see it right away
+            // and the listings file is written once per batch of changed properties
+            property.setAverageRating(Repositories.RATINGS.average(propertyId));
+            RatingWriteBack.markDirty(propertyId);
         }
     }
 }
@@ -0,0 +1,94 @@
+package com.airbnb.services;
+
+import com.airbnb.models.Property;
+import com.airbnb.repository.Repositories;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Debounced write-back of property ratings
+ * A review change updates the in-memory rating immediately and only marks the
+ * property dirty; dirty properties are persisted together with one listings write
+ * once the flush delay passes or enough of them pile up (e.g. a review import).
+ *
+ * Configuration (system properties):
+ *   airbnb.rating.flushMillis delay between the first change and the write (default 500)
+ *   airbnb.rating.batchSize   dirty properties that trigger an immediate write (default 1000)
+ */
+public class RatingWriteBack {
+
+    private static final long FLUSH_MILLIS = Long.getLong("airbnb.rating.flushMillis", 500);
+    private static final int BATCH_SIZE = Integer.getInteger("airbnb.rating.batchSize", 1000);
+
+    private static final Set<String> DIRTY = ConcurrentHashMap.newKeySet();
+
+    private static final ScheduledExecutorService SCHEDULER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "rating-write-back");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private static boolean scheduled = false;
+
+    static {
+        // Persist pending ratings on a clean shutdown
+        Runtime.getRuntime().addShutdownHook(new Thread(RatingWriteBack::flush, "rating-write-back-flush"));
+    }
+
+    /**
+     * Mark a property whose in-memory rating changed as needing to be persisted
+     */
+    public static void markDirty(String propertyId) {
+        DIRTY.add(propertyId);
+        if (DIRTY.size() >= BATCH_SIZE) {
+            flush();
+            return;
+        }
+        synchronized (RatingWriteBack.class) {
+            if (!scheduled) {
+                scheduled = true;
+                SCHEDULER.schedule(RatingWriteBack::flush, FLUSH_MILLIS, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Persist every pending rating with a single listings write
+     * @return the number of properties written
+     */
+    public static int flush() {
+        synchronized (RatingWriteBack.class) {
+            scheduled = false;
+        }
+        List<Property> properties = new ArrayList<>();
+        for (String propertyId : DIRTY) {
+            DIRTY.remove(propertyId);
+            Property property = Repositories.PROPERTIES.findById(propertyId);
+            if (property != null) {
+                properties.add(property);
+            }
+        }
+        if (properties.isEmpty()) {
+            return 0;
+        }
+        try {
+            return Repositories.PROPERTIES.updateAll(properties);
+        } catch (RuntimeException e) {
+            System.err.println("Error saving ratings: " + e.getMessage());
+            return 0;
+        }
+    }
+
+    /**
+     * Number of properties whose rating has not been persisted yet
+     */
+    public static int pending() {
+        return DIRTY.size();
+    }
+}
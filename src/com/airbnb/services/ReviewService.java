@@ -1,10 +1,10 @@
 package com.airbnb.services;
 
 import com.airbnb.models.Review;
+import com.airbnb.repository.Repositories;
 
 import java.util.List;
 import java.util.UUID;
-import java.util.stream.Collectors;
 
 /**
  * Review service
@@ -16,39 +16,35 @@ public class ReviewService {
      * Get all reviews
      */
     public static List<Review> getAllReviews() {
-        List<String> lines = FileService.readAllLines(FileService.REVIEWS_FILE);
-        return lines.stream()
-            .map(Review::fromFileString)
-            .filter(r -> r != null)
-            .collect(Collectors.toList());
+        return Repositories.REVIEWS.findAll();
     }
     
     /**
      * Get review by ID
      */
     public static Review getReviewById(String id) {
-        return getAllReviews().stream()
-            .filter(r -> r.getId().equals(id))
-            .findFirst()
-            .orElse(null);
+        return Repositories.REVIEWS.findById(id);
     }
     
     /**
      * Get reviews by property ID
      */
     public static List<Review> getReviewsByPropertyId(String propertyId) {
-        return getAllReviews().stream()
-            .filter(r -> r.getPropertyId().equals(propertyId))
-            .collect(Collectors.toList());
+        return Repositories.REVIEWS_BY_PROPERTY.find(propertyId);
+    }
+    
+    /**
+     * Get one page of a property's reviews
+     */
+    public static List<Review> getReviewsByPropertyId(String propertyId, int offset, int limit) {
+        return Repositories.REVIEWS.findByIds(Repositories.REVIEWS_BY_PROPERTY.idsFor(propertyId, offset, limit));
     }
     
     /**
      * Get reviews by user ID
      */
     public static List<Review> getReviewsByUserId(String userId) {
-        return getAllReviews().stream()
-            .filter(r -> r.getUserId().equals(userId))
-            .collect(Collectors.toList());
+        return Repositories.REVIEWS.findWhere(r -> r.getUserId().equals(userId));
     }
     
     /**
@@ -59,8 +55,8 @@ public class ReviewService {
             review.setId(UUID.randomUUID().toString());
         }
         
-        // Save review to file
-        FileService.appendLine(FileService.REVIEWS_FILE, review.toFileString());
+        // Save review (written through to file)
+        Repositories.REVIEWS.insert(review);
         
         // Automatically recalculate and update property rating
         PropertyService.recalculateRating(review.getPropertyId());
@@ -72,9 +68,7 @@ public class ReviewService {
      * Update a review and recalculate rating
      */
     public static boolean updateReview(Review review) {
-        boolean updated = FileService.updateLineById(FileService.REVIEWS_FILE, 
-                                                    review.getId(), 
-                                                    review.toFileString());
+        boolean updated = Repositories.REVIEWS.update(review);
         if (updated) {
             // Recalculate rating after update
             PropertyService.recalculateRating(review.getPropertyId());
@@ -89,7 +83,7 @@ public class ReviewService {
         Review review = getReviewById(id);
         if (review != null) {
             String propertyId = review.getPropertyId();
-            boolean deleted = FileService.deleteLineById(FileService.REVIEWS_FILE, id);
+            boolean deleted = Repositories.REVIEWS.delete(id);
             if (deleted) {
                 // Recalculate rating after deletion
                 PropertyService.recalculateRating(propertyId);
@@ -103,10 +97,7 @@ public class ReviewService {
      * Delete all reviews for a property (when property is deleted)
      */
     public static void deleteReviewsByPropertyId(String propertyId) {
-        List<Review> reviews = getReviewsByPropertyId(propertyId);
-        for (Review review : reviews) {
-            FileService.deleteLineById(FileService.REVIEWS_FILE, review.getId());
-        }
+        Repositories.REVIEWS.deleteWhere(r -> r.getPropertyId().equals(propertyId));
     }
 }
 
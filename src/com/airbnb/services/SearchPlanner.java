@@ -0,0 +1,475 @@
+package com.airbnb.services;
+
+import com.airbnb.models.Property;
+import com.airbnb.models.PropertyQuery;
+import com.airbnb.repository.Repositories;
+import com.airbnb.utils.ValidationUtil;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.Set;
+import java.util.logging.Logger;
+
+/**
+ * Cost-based planner for property search
+ * A search is an AND of criteria (location, price, rating, dates). Each criterion
+ * estimates how many properties it matches from its index without collecting IDs;
+ * the most selective one that has a posting list supplies the candidates, and the
+ * others are applied to those candidates from most to least selective.
+ * Every step is timed, so a plan can be printed with {@link Plan#explain()}.
+ *
+ * Configuration (system properties):
+ *   airbnb.search.explain log the plan of every search (default false)
+ */
+public class SearchPlanner {
+
+    private static final boolean EXPLAIN = Boolean.getBoolean("airbnb.search.explain");
+
+    private static final Logger LOG = Logger.getLogger(SearchPlanner.class.getName());
+
+    /**
+     * Run a search and return its plan, which holds every result
+     */
+    public static Plan execute(PropertyQuery query) {
+        Plan plan = new Plan(query);
+        List<Property> candidates = select(query, plan);
+        plan.results = PropertyService.applyRatings(candidates);
+        return finish(plan);
+    }
+
+    /**
+     * Run a search and return one page of results in the query's sort order
+     * The page is a bounded top-K selection of the candidates after the cursor,
+     * so the full result set is never sorted.
+     * @param cursor null for the first page, else the next cursor of the previous page
+     */
+    public static Plan executePage(PropertyQuery query, int pageSize, String cursor) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        Plan plan = new Plan(query);
+        List<Property> candidates = select(query, plan);
+
+        long start = System.nanoTime();
+        PageOrder order = new PageOrder(query.getSortOrder());
+        Ranked after = cursor == null ? null : order.parse(cursor);
+        // Max-heap on the worst kept result, holding one extra to tell whether more pages follow
+        PriorityQueue<Ranked> heap = new PriorityQueue<>(pageSize + 2, Collections.reverseOrder());
+        for (Property property : candidates) {
+            Ranked ranked = order.rank(property);
+            if (after != null && ranked.compareTo(after) <= 0) {
+                continue;
+            }
+            if (heap.size() <= pageSize) {
+                heap.add(ranked);
+            } else if (ranked.compareTo(heap.peek()) < 0) {
+                heap.poll();
+                heap.add(ranked);
+            }
+        }
+        boolean more = heap.size() > pageSize;
+        if (more) {
+            heap.poll();
+        }
+        List<Ranked> page = new ArrayList<>(heap);
+        Collections.sort(page);
+        List<Property> properties = new ArrayList<>(page.size());
+        for (Ranked ranked : page) {
+            properties.add(ranked.property);
+        }
+        plan.step("top " + pageSize + " by " + query.getSortOrder().name() + (after == null ? "" : " after cursor"),
+                  -1, properties.size(), start);
+
+        plan.results = PropertyService.applyRatings(properties);
+        plan.nextCursor = more ? order.format(page.get(page.size() - 1)) : null;
+        return finish(plan);
+    }
+
+    /**
+     * Find the properties matching every criterion, unordered
+     */
+    private static List<Property> select(PropertyQuery query, Plan plan) {
+        long start = System.nanoTime();
+        // Same rules as booking, which also bounds the days the occupancy calendar scans
+        if (query.hasDates() && !ValidationUtil.isValidStay(query.getCheckIn(), query.getCheckOut())) {
+            plan.step("reject invalid stay", 0, 0, start);
+            return new ArrayList<>();
+        }
+
+        List<Criterion> criteria = criteriaOf(query);
+        for (Criterion criterion : criteria) {
+            criterion.estimate = criterion.estimate();
+        }
+        criteria.sort(Comparator.comparingInt(c -> c.estimate));
+        StringBuilder order = new StringBuilder(criteria.isEmpty() ? "plan: no criteria" : "plan:");
+        for (Criterion criterion : criteria) {
+            order.append(criterion == criteria.get(0) ? " " : ", ").append(criterion.name);
+        }
+        plan.step(order.toString(), -1, criteria.size(), start);
+
+        // Candidates from the most selective posting list
+        start = System.nanoTime();
+        Criterion driver = null;
+        Collection<String> driverIds = null;
+        for (Criterion criterion : criteria) {
+            driverIds = criterion.postings();
+            if (driverIds != null) {
+                driver = criterion;
+                break;
+            }
+        }
+        List<Property> candidates;
+        if (driver == null) {
+            candidates = Repositories.PROPERTIES.findAll();
+            plan.step("scan all properties", candidates.size(), candidates.size(), start);
+        } else {
+            candidates = Repositories.PROPERTIES.findByIds(driverIds);
+            plan.step("index " + driver.name, driver.estimate, candidates.size(), start);
+        }
+
+        // Remaining criteria, most selective first
+        for (Criterion criterion : criteria) {
+            if (criterion == driver) {
+                continue;
+            }
+            start = System.nanoTime();
+            candidates = criterion.apply(candidates);
+            plan.step((criterion.intersects() ? "intersect " : "filter ") + criterion.name,
+                      criterion.estimate, candidates.size(), start);
+        }
+        return candidates;
+    }
+
+    private static Plan finish(Plan plan) {
+        if (EXPLAIN) {
+            // Through the logging config (stderr by default), not the service's stdout
+            LOG.info(plan.explain());
+        }
+        return plan;
+    }
+
+    private static List<Criterion> criteriaOf(PropertyQuery query) {
+        List<Criterion> criteria = new ArrayList<>();
+        if (query.hasLocation()) {
+            criteria.add(new LocationCriterion(query.getLocation()));
+        }
+        if (query.getMaxPrice() != null) {
+            criteria.add(new PriceCriterion(query.getMaxPrice()));
+        }
+        // Every average is >= 0, and unreviewed properties are not in the rating index
+        if (query.getMinRating() != null && query.getMinRating() > 0) {
+            criteria.add(new RatingCriterion(query.getMinRating()));
+        }
+        if (query.hasDates()) {
+            criteria.add(new DatesCriterion(query));
+        }
+        return criteria;
+    }
+
+    /**
+     * Executed search: its steps in order and the matching properties
+     */
+    public static class Plan {
+        private final PropertyQuery query;
+        private final List<Step> steps = new ArrayList<>();
+        private List<Property> results;
+        private String nextCursor;
+
+        private Plan(PropertyQuery query) {
+            this.query = query;
+        }
+
+        public List<Property> getResults() {
+            return results;
+        }
+
+        /**
+         * Cursor of the page after this one, or null (only set by executePage)
+         */
+        public String getNextCursor() {
+            return nextCursor;
+        }
+
+        public List<Step> getSteps() {
+            return steps;
+        }
+
+        private void step(String description, int estimated, int rows, long startNanos) {
+            steps.add(new Step(description, estimated, rows, System.nanoTime() - startNanos));
+        }
+
+        /**
+         * One line per step with its estimated and actual rows and its time
+         */
+        public String explain() {
+            StringBuilder sb = new StringBuilder("Search ").append(query).append('\n');
+            long total = 0;
+            for (int i = 0; i < steps.size(); i++) {
+                Step step = steps.get(i);
+                sb.append(String.format("  %d. %-40s est %8s  rows %8d  %8.3f ms%n", i + 1,
+                    step.getDescription(), step.getEstimated() < 0 ? "-" : String.valueOf(step.getEstimated()),
+                    step.getRows(), step.getNanos() / 1e6));
+                total += step.getNanos();
+            }
+            sb.append(String.format("  total %.3f ms, %d results", total / 1e6, results.size()));
+            return sb.toString();
+        }
+    }
+
+    /**
+     * One executed step of a plan
+     */
+    public static class Step {
+        private final String description;
+        private final int estimated;
+        private final int rows;
+        private final long nanos;
+
+        Step(String description, int estimated, int rows, long nanos) {
+            this.description = description;
+            this.estimated = estimated;
+            this.rows = rows;
+            this.nanos = nanos;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /**
+         * Rows the planner expected, or -1 if the step has no estimate
+         */
+        public int getEstimated() {
+            return estimated;
+        }
+
+        public int getRows() {
+            return rows;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+    }
+
+    /**
+     * A property with its sort key; ordered by key, then by ID so every order is total
+     */
+    private static class Ranked implements Comparable<Ranked> {
+        final Property property;
+        final String id;
+        final double key;
+
+        Ranked(Property property, String id, double key) {
+            this.property = property;
+            this.id = id;
+            this.key = key;
+        }
+
+        @Override
+        public int compareTo(Ranked other) {
+            int byKey = Double.compare(key, other.key);
+            return byKey != 0 ? byKey : id.compareTo(other.id);
+        }
+    }
+
+    /**
+     * Sort keys of a sort order (descending orders use the negated value) and
+     * the cursor format: "key|id" of the last result on a page
+     */
+    private static class PageOrder {
+        private final PropertyQuery.SortOrder sortOrder;
+
+        PageOrder(PropertyQuery.SortOrder sortOrder) {
+            this.sortOrder = sortOrder;
+        }
+
+        Ranked rank(Property property) {
+            double key;
+            switch (sortOrder) {
+                case PRICE_LOW:
+                    key = property.getPrice();
+                    break;
+                case PRICE_HIGH:
+                    key = -property.getPrice();
+                    break;
+                default:
+                    key = -Repositories.RATINGS.average(property.getId());
+                    break;
+            }
+            return new Ranked(property, property.getId(), key);
+        }
+
+        String format(Ranked last) {
+            return last.key + "|" + last.id;
+        }
+
+        Ranked parse(String cursor) {
+            int split = cursor.indexOf('|');
+            try {
+                return new Ranked(null, cursor.substring(split + 1), Double.parseDouble(cursor.substring(0, split)));
+            } catch (RuntimeException e) {
+                throw new IllegalArgumentException("Invalid search cursor: " + cursor);
+            }
+        }
+    }
+
+    /**
+     * One leaf of the search: an estimate, an optional posting list and a per-candidate check
+     */
+    private abstract static class Criterion {
+        final String name;
+        int estimate;
+
+        Criterion(String name) {
+            this.name = name;
+        }
+
+        /**
+         * Upper bound on the number of matching properties
+         */
+        abstract int estimate();
+
+        /**
+         * IDs of the matching properties, or null if the index cannot list them (filter only)
+         */
+        abstract Collection<String> postings();
+
+        /**
+         * Whether apply() intersects with the posting list rather than testing each candidate
+         */
+        boolean intersects() {
+            return false;
+        }
+
+        abstract boolean test(Property property);
+
+        List<Property> apply(List<Property> candidates) {
+            List<Property> matches = new ArrayList<>();
+            for (Property property : candidates) {
+                if (test(property)) {
+                    matches.add(property);
+                }
+            }
+            return matches;
+        }
+    }
+
+    private static class LocationCriterion extends Criterion {
+        private final String location;
+        private Set<String> ids;
+
+        LocationCriterion(String location) {
+            super("location '" + location + "'");
+            this.location = location;
+        }
+
+        @Override
+        int estimate() {
+            return Repositories.LOCATIONS.estimate(location);
+        }
+
+        @Override
+        Collection<String> postings() {
+            if (ids == null) {
+                ids = Repositories.LOCATIONS.idsMatching(location);
+            }
+            return ids;
+        }
+
+        @Override
+        boolean intersects() {
+            return true;
+        }
+
+        @Override
+        boolean test(Property property) {
+            return postings().contains(property.getId());
+        }
+    }
+
+    private static class PriceCriterion extends Criterion {
+        private final double maxPrice;
+
+        PriceCriterion(double maxPrice) {
+            super("price <= " + maxPrice);
+            this.maxPrice = maxPrice;
+        }
+
+        @Override
+        int estimate() {
+            return Repositories.PRICE_RANGE.countBetween(null, maxPrice);
+        }
+
+        @Override
+        Collection<String> postings() {
+            return Repositories.PRICE_RANGE.idsBetween(null, maxPrice);
+        }
+
+        @Override
+        boolean test(Property property) {
+            return property.getPrice() <= maxPrice;
+        }
+    }
+
+    private static class RatingCriterion extends Criterion {
+        private final double minRating;
+
+        RatingCriterion(double minRating) {
+            super("rating >= " + minRating);
+            this.minRating = minRating;
+        }
+
+        @Override
+        int estimate() {
+            return Repositories.RATING_RANGE.countBetween(minRating, null);
+        }
+
+        @Override
+        Collection<String> postings() {
+            return Repositories.RATING_RANGE.idsBetween(minRating, null);
+        }
+
+        @Override
+        boolean test(Property property) {
+            return Repositories.RATINGS.average(property.getId()) >= minRating;
+        }
+    }
+
+    /**
+     * Free and open for the whole stay; the occupancy calendar has no list of free
+     * properties, so this criterion only filters
+     */
+    private static class DatesCriterion extends Criterion {
+        private final PropertyQuery query;
+        private BitSet occupied;
+
+        DatesCriterion(PropertyQuery query) {
+            super("available " + query.getCheckIn() + ".." + query.getCheckOut());
+            this.query = query;
+        }
+
+        @Override
+        int estimate() {
+            Repositories.BOOKINGS.ensureLoaded();
+            occupied = Repositories.OCCUPANCY.occupiedBetween(query.getCheckIn(), query.getCheckOut());
+            return Math.max(0, Repositories.PROPERTIES.count() - occupied.cardinality());
+        }
+
+        @Override
+        Collection<String> postings() {
+            return null;
+        }
+
+        @Override
+        boolean test(Property property) {
+            return property.isOpenBetween(query.getCheckIn(), query.getCheckOut()) &&
+                   Repositories.OCCUPANCY.isFree(occupied, property.getId());
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.airbnb.storage;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.EnumSet;
+import java.util.Set;
+
+/**
+ * Crash-safe replacement of a whole file
+ * Lines are written to a temp file in the same directory, forced to disk and
+ * then renamed over the target in one atomic step. Readers (and a crash) see
+ * either the complete old file or the complete new one, never a partial write.
+ * If commit() is not reached, close() deletes the temp file and the target is untouched.
+ *
+ * Usage:
+ *   try (AtomicFileWriter out = new AtomicFileWriter(path)) {
+ *       out.writer().write(...);
+ *       out.commit();
+ *   }
+ */
+public class AtomicFileWriter implements Closeable {
+
+    private final Path target;
+    private final Path temp;
+    private final FileChannel channel;
+    private final BufferedWriter writer;
+    private boolean committed = false;
+
+    public AtomicFileWriter(String filePath) throws IOException {
+        this.target = Paths.get(filePath).toAbsolutePath();
+        this.temp = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+        this.channel = FileChannel.open(temp, StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING);
+        this.writer = new BufferedWriter(new OutputStreamWriter(Channels.newOutputStream(channel), StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Writer for the new content (UTF-8)
+     */
+    public BufferedWriter writer() {
+        return writer;
+    }
+
+    /**
+     * Force the new content to disk and atomically move it over the target
+     */
+    public void commit() throws IOException {
+        writer.flush();
+        channel.force(true);
+        writer.close();
+        copyAttributes();
+        try {
+            Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        syncDirectory();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (!committed) {
+            try {
+                writer.close();
+            } finally {
+                Files.deleteIfExists(temp);
+            }
+        }
+    }
+
+    /**
+     * Give the temp file the target's permissions and owner, since the rename replaces
+     * the target with it (temp files are created owner-only).
+     * A new file gets its directory's permissions without the execute bits instead.
+     */
+    private void copyAttributes() throws IOException {
+        PosixFileAttributeView view = Files.getFileAttributeView(temp, PosixFileAttributeView.class);
+        if (view == null) {
+            return;
+        }
+        if (!Files.exists(target)) {
+            Set<PosixFilePermission> permissions = Files.getPosixFilePermissions(target.getParent());
+            permissions.removeAll(EnumSet.of(PosixFilePermission.OWNER_EXECUTE,
+                PosixFilePermission.GROUP_EXECUTE, PosixFilePermission.OTHERS_EXECUTE));
+            view.setPermissions(permissions);
+            return;
+        }
+        PosixFileAttributes attributes = Files.readAttributes(target, PosixFileAttributes.class);
+        view.setPermissions(attributes.permissions());
+        try {
+            view.setGroup(attributes.group());
+            view.setOwner(attributes.owner());
+        } catch (IOException | UnsupportedOperationException e) {
+            // Best effort: only privileged users can hand a file to another owner
+        }
+    }
+
+    /**
+     * Persist the rename itself (not supported on every platform, e.g. Windows)
+     */
+    private void syncDirectory() {
+        try (FileChannel directory = FileChannel.open(target.getParent(), StandardOpenOption.READ)) {
+            directory.force(true);
+        } catch (IOException e) {
+            // Best effort: the data itself is already on disk
+        }
+    }
+}
@@ -0,0 +1,206 @@
+package com.airbnb.storage;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Group-commit appender for one data file
+ * Keeps a single channel open and batches concurrent appends into one write.
+ * A batch is written once it reaches the size threshold or the time threshold,
+ * whichever comes first. Each append returns a future that completes when its
+ * batch is durable according to the configured mode.
+ *
+ * Configuration (system properties):
+ *   airbnb.commit.durability  "flush" (write to the OS, default) or "fsync" (force to disk per batch)
+ *   airbnb.commit.batchBytes  pending bytes that trigger an immediate write (default 65536)
+ *   airbnb.commit.delayMillis longest a record waits for its batch (default 2)
+ */
+public class GroupCommitWriter {
+
+    public enum Durability { FLUSH, FSYNC }
+
+    private static final Durability DURABILITY =
+        "fsync".equalsIgnoreCase(System.getProperty("airbnb.commit.durability", "flush"))
+            ? Durability.FSYNC : Durability.FLUSH;
+    private static final int BATCH_BYTES = Integer.getInteger("airbnb.commit.batchBytes", 64 * 1024);
+    private static final long DELAY_MILLIS = Long.getLong("airbnb.commit.delayMillis", 2);
+
+    private static final Map<String, GroupCommitWriter> WRITERS = new ConcurrentHashMap<>();
+
+    private static final ScheduledExecutorService FLUSHER = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread thread = new Thread(r, "group-commit");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    static {
+        // Write out anything still pending when the application exits
+        Runtime.getRuntime().addShutdownHook(new Thread(GroupCommitWriter::flushAll, "group-commit-flush"));
+    }
+
+    private final Path path;
+    private FileChannel channel;
+    private final List<byte[]> pending = new ArrayList<>();
+    private final List<CompletableFuture<Void>> waiters = new ArrayList<>();
+    private int pendingBytes = 0;
+    private boolean flushScheduled = false;
+
+    private GroupCommitWriter(String filePath) {
+        this.path = Paths.get(filePath);
+    }
+
+    /**
+     * Get the writer for a data file
+     */
+    public static GroupCommitWriter of(String filePath) {
+        return WRITERS.computeIfAbsent(filePath, GroupCommitWriter::new);
+    }
+
+    /**
+     * Write out pending records of every writer
+     */
+    public static void flushAll() {
+        for (GroupCommitWriter writer : WRITERS.values()) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Queue bytes for appending
+     * @return a future that completes once the bytes are durable
+     */
+    public synchronized CompletableFuture<Void> append(byte[] data) {
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        pending.add(data);
+        waiters.add(done);
+        pendingBytes += data.length;
+
+        if (pendingBytes >= BATCH_BYTES) {
+            flush();
+        } else if (!flushScheduled) {
+            flushScheduled = true;
+            FLUSHER.schedule(this::flush, DELAY_MILLIS, TimeUnit.MILLISECONDS);
+        }
+        return done;
+    }
+
+    /**
+     * Byte offset at which the next appended record will start
+     */
+    public synchronized long endOffset() throws IOException {
+        return openChannel().size() + pendingBytes;
+    }
+
+    /**
+     * Write the pending batch now and complete its futures
+     */
+    public synchronized void flush() {
+        flushScheduled = false;
+        if (pending.isEmpty()) {
+            return;
+        }
+
+        List<CompletableFuture<Void>> batch = new ArrayList<>(waiters);
+        ByteBuffer buffer = ByteBuffer.allocate(pendingBytes);
+        for (byte[] data : pending) {
+            buffer.put(data);
+        }
+        buffer.flip();
+        pending.clear();
+        waiters.clear();
+        pendingBytes = 0;
+
+        long start = -1;
+        try {
+            FileChannel out = openChannel();
+            start = out.size();
+            while (buffer.hasRemaining()) {
+                out.write(buffer);
+            }
+            if (DURABILITY == Durability.FSYNC) {
+                out.force(false);
+            }
+            batch.forEach(done -> done.complete(null));
+        } catch (IOException e) {
+            System.err.println("Error writing to file " + path + ": " + e.getMessage());
+            discardPartialBatch(start);
+            batch.forEach(done -> done.completeExceptionally(e));
+        }
+    }
+
+    /**
+     * Overwrite records of unchanged length where they are, with the configured durability
+     * Pending appends are written first, so the offsets refer to the file as it is indexed.
+     * @param writes bytes to write by file offset
+     */
+    public synchronized void overwrite(Map<Long, byte[]> writes) throws IOException {
+        flush();
+        if (writes.isEmpty()) {
+            return;
+        }
+        // The append channel writes at the end whatever the position, so a plain one is opened
+        try (FileChannel out = FileChannel.open(path, StandardOpenOption.WRITE)) {
+            for (Map.Entry<Long, byte[]> write : writes.entrySet()) {
+                ByteBuffer buffer = ByteBuffer.wrap(write.getValue());
+                while (buffer.hasRemaining()) {
+                    out.write(buffer, write.getKey() + buffer.position());
+                }
+            }
+            if (DURABILITY == Durability.FSYNC) {
+                out.force(false);
+            }
+        }
+    }
+
+    /**
+     * Flush and release the channel (e.g. before the file is replaced)
+     * The channel is reopened on the next append.
+     */
+    public synchronized void close() {
+        flush();
+        if (channel != null) {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                System.err.println("Error closing file " + path + ": " + e.getMessage());
+            }
+            channel = null;
+        }
+    }
+
+    /**
+     * Cut off whatever part of a failed batch reached the file, so the next record starts on a line of its own
+     */
+    private void discardPartialBatch(long start) {
+        if (start < 0) {
+            return;
+        }
+        try {
+            if (channel.size() > start) {
+                channel.truncate(start);
+            }
+        } catch (IOException e) {
+            System.err.println("Error truncating file " + path + ": " + e.getMessage());
+        }
+    }
+
+    private FileChannel openChannel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        }
+        return channel;
+    }
+}
@@ -0,0 +1,67 @@
+package com.airbnb.storage;
+
+import com.airbnb.services.FileService;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background compactor for append-only data files
+ * Periodically rewrites any file whose dead records pass the configured threshold.
+ *
+ * Configuration (system properties):
+ *   airbnb.compaction.threshold       dead/total ratio that triggers a rewrite (default 0.5)
+ *   airbnb.compaction.minDead         minimum dead records before compacting (default 100)
+ *   airbnb.compaction.intervalSeconds how often files are checked (default 30)
+ */
+public class LogCompactor {
+
+    private static final double THRESHOLD =
+        Double.parseDouble(System.getProperty("airbnb.compaction.threshold", "0.5"));
+    private static final long MIN_DEAD_RECORDS = Long.getLong("airbnb.compaction.minDead", 100);
+    private static final long INTERVAL_SECONDS = Long.getLong("airbnb.compaction.intervalSeconds", 30);
+
+    private static ScheduledExecutorService scheduler;
+
+    /**
+     * Start the background compactor (no-op if already running)
+     */
+    public static synchronized void start() {
+        if (scheduler != null) {
+            return;
+        }
+        scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread thread = new Thread(r, "log-compactor");
+            thread.setDaemon(true);
+            return thread;
+        });
+        scheduler.scheduleWithFixedDelay(LogCompactor::compactAll,
+            INTERVAL_SECONDS, INTERVAL_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * Stop the background compactor
+     */
+    public static synchronized void stop() {
+        if (scheduler != null) {
+            scheduler.shutdown();
+            scheduler = null;
+        }
+    }
+
+    /**
+     * Compact every file that has passed the threshold
+     */
+    public static void compactAll() {
+        for (RecordLog log : RecordLog.all()) {
+            if (log.needsCompaction(THRESHOLD, MIN_DEAD_RECORDS)) {
+                try {
+                    FileService.compact(log.getFilePath());
+                } catch (RuntimeException e) {
+                    System.err.println("Error compacting " + log.getFilePath() + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package com.airbnb.storage;
+
+import java.io.IOException;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.Consumer;
+
+/**
+ * Memory-mapped, zero-copy reader for a data file
+ * Scans the mapped bytes for line and '|' field boundaries and exposes each
+ * record as a view (offset + length). Nothing is decoded into a String until
+ * a caller asks for a specific field or the whole line.
+ * The mapping is released deterministically on close().
+ */
+public class MappedRecordReader implements AutoCloseable {
+
+    private static final byte NEWLINE = '\n';
+    private static final byte CARRIAGE_RETURN = '\r';
+    private static final byte SEPARATOR = '|';
+
+    private final Arena arena;
+    private final MemorySegment segment;
+
+    /**
+     * Map a data file for reading
+     */
+    public MappedRecordReader(String filePath) throws IOException {
+        this.arena = Arena.ofShared();
+        try (FileChannel channel = FileChannel.open(Paths.get(filePath), StandardOpenOption.READ)) {
+            long size = channel.size();
+            this.segment = size > 0
+                ? channel.map(FileChannel.MapMode.READ_ONLY, 0, size, arena)
+                : MemorySegment.NULL;
+        } catch (IOException | RuntimeException e) {
+            arena.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Size of the mapped file in bytes
+     */
+    public long size() {
+        return segment.byteSize();
+    }
+
+    /**
+     * Visit every non-blank record in file order
+     * The same view instance is reused for each record; copy what you need.
+     */
+    public void forEach(Consumer<RecordView> visitor) {
+        forEach(0, size(), visitor);
+    }
+
+    /**
+     * Visit every non-blank record whose line starts in [from, to)
+     * {@code from} must be the start of a line.
+     */
+    public void forEach(long from, long to, Consumer<RecordView> visitor) {
+        RecordView view = new RecordView();
+        long end = size();
+        long lineStart = from;
+        while (lineStart < to) {
+            long lineEnd = indexOf(NEWLINE, lineStart, end);
+            long next = lineEnd < 0 ? end : lineEnd + 1;
+            long contentEnd = lineEnd < 0 ? end : lineEnd;
+            if (contentEnd > lineStart && byteAt(contentEnd - 1) == CARRIAGE_RETURN) {
+                contentEnd--;
+            }
+            view.reset(lineStart, contentEnd - lineStart);
+            if (!view.isBlank()) {
+                visitor.accept(view);
+            }
+            lineStart = next;
+        }
+    }
+
+    /**
+     * Create a standalone view of a record at a known position (e.g. from the offset index)
+     */
+    public RecordView view(long offset, long length) {
+        RecordView view = new RecordView();
+        view.reset(offset, length);
+        return view;
+    }
+
+    /**
+     * Position just after the next line break at or after {@code offset} (or the end of the file)
+     */
+    public long nextLineStart(long offset) {
+        long lineEnd = indexOf(NEWLINE, offset, size());
+        return lineEnd < 0 ? size() : lineEnd + 1;
+    }
+
+    @Override
+    public void close() {
+        arena.close();
+    }
+
+    private byte byteAt(long offset) {
+        return segment.get(ValueLayout.JAVA_BYTE, offset);
+    }
+
+    private long indexOf(byte target, long from, long to) {
+        for (long i = from; i < to; i++) {
+            if (segment.get(ValueLayout.JAVA_BYTE, i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private String decode(long offset, long length) {
+        if (length <= 0) {
+            return "";
+        }
+        byte[] bytes = segment.asSlice(offset, length).toArray(ValueLayout.JAVA_BYTE);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * View of one record (one line) in the mapped file
+     * Field boundaries are found on first use and reused for later field reads.
+     */
+    public final class RecordView {
+        private long offset;
+        private long length;
+        // Offset (relative to the line) where each field ends; -1 count means not scanned yet
+        private int[] fieldEnds = new int[8];
+        private int fieldCount = -1;
+
+        private void reset(long offset, long length) {
+            this.offset = offset;
+            this.length = length;
+            this.fieldCount = -1;
+        }
+
+        public long offset() {
+            return offset;
+        }
+
+        public long length() {
+            return length;
+        }
+
+        /**
+         * Check if the line is empty or whitespace only
+         */
+        public boolean isBlank() {
+            for (long i = 0; i < length; i++) {
+                if ((byteAt(offset + i) & 0xff) > ' ') {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Number of '|' separated fields
+         */
+        public int fieldCount() {
+            scanFields();
+            return fieldCount;
+        }
+
+        /**
+         * Decode a single field
+         */
+        public String field(int index) {
+            scanFields();
+            if (index < 0 || index >= fieldCount) {
+                return null;
+            }
+            int start = index == 0 ? 0 : fieldEnds[index - 1] + 1;
+            return decode(offset + start, fieldEnds[index] - start);
+        }
+
+        /**
+         * Compare a field with an ASCII value without decoding it
+         */
+        public boolean fieldEquals(int index, String value) {
+            scanFields();
+            if (index < 0 || index >= fieldCount) {
+                return false;
+            }
+            int start = index == 0 ? 0 : fieldEnds[index - 1] + 1;
+            int fieldLength = fieldEnds[index] - start;
+            if (fieldLength != value.length()) {
+                return false;
+            }
+            for (int i = 0; i < fieldLength; i++) {
+                if (byteAt(offset + start + i) != (byte) value.charAt(i) || value.charAt(i) > 0x7f) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Check if this record is a tombstone (id|~deleted~)
+         */
+        public boolean isTombstone() {
+            return fieldCount() == 2 && fieldEquals(1, RecordLog.TOMBSTONE);
+        }
+
+        /**
+         * Decode the whole line
+         */
+        public String line() {
+            return decode(offset, length);
+        }
+
+        private void scanFields() {
+            if (fieldCount >= 0) {
+                return;
+            }
+            fieldCount = 0;
+            for (int i = 0; i < length; i++) {
+                if (byteAt(offset + i) == SEPARATOR) {
+                    addFieldEnd(i);
+                }
+            }
+            addFieldEnd((int) length);
+        }
+
+        private void addFieldEnd(int end) {
+            if (fieldCount == fieldEnds.length) {
+                int[] grown = new int[fieldEnds.length * 2];
+                System.arraycopy(fieldEnds, 0, grown, 0, fieldEnds.length);
+                fieldEnds = grown;
+            }
+            fieldEnds[fieldCount++] = end;
+        }
+    }
+}
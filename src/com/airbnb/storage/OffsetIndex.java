@@ -0,0 +1,229 @@
+package com.airbnb.storage;
+
+import com.airbnb.utils.RecordTokenizer;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Primary index for a data file: record ID -> byte offset and length of its live line
+ * Persisted next to the data file as a sidecar (e.g. data/bookings.txt.idx).
+ * The sidecar header records the data file size and modification time; if the
+ * sidecar is missing or does not match, the index is rebuilt by scanning the file.
+ */
+public class OffsetIndex {
+
+    private static final String SIDECAR_SUFFIX = ".idx";
+    private static final String HEADER_PREFIX = "#idx";
+
+    private static final Map<String, OffsetIndex> INDEXES = new ConcurrentHashMap<>();
+
+    static {
+        // Persist dirty indexes on a clean shutdown; a crash leaves no sidecar and forces a rebuild
+        Runtime.getRuntime().addShutdownHook(new Thread(OffsetIndex::saveAll, "offset-index-save"));
+    }
+
+    private final String filePath;
+    private final Map<String, long[]> entries = new HashMap<>();
+    private boolean loaded = false;
+    private boolean dirty = false;
+    // Set without the lock when a queued write failed; the next access rebuilds from the file
+    private volatile boolean stale = false;
+
+    private OffsetIndex(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Get the index for a data file
+     */
+    public static OffsetIndex of(String filePath) {
+        return INDEXES.computeIfAbsent(filePath, OffsetIndex::new);
+    }
+
+    /**
+     * Save every index that changed since it was last persisted
+     */
+    public static void saveAll() {
+        for (OffsetIndex index : INDEXES.values()) {
+            index.saveIfDirty();
+        }
+    }
+
+    /**
+     * Get {offset, length} of the live line for an ID, or null if the ID is not in the file
+     */
+    public synchronized long[] get(String id) {
+        ensureLoaded();
+        return entries.get(id);
+    }
+
+    /**
+     * Check if an ID has a live line in the file
+     */
+    public synchronized boolean contains(String id) {
+        ensureLoaded();
+        return entries.containsKey(id);
+    }
+
+    /**
+     * Record the position of a new line for an ID
+     */
+    public synchronized void put(String id, long offset, long length) {
+        ensureLoaded();
+        entries.put(id, new long[] {offset, length});
+        markDirty();
+    }
+
+    /**
+     * Forget an ID (its record was deleted)
+     */
+    public synchronized void remove(String id) {
+        ensureLoaded();
+        entries.remove(id);
+        markDirty();
+    }
+
+    /**
+     * Record that the data file was modified without moving any line (an in-place overwrite)
+     * The sidecar header no longer describes the file, so it is dropped and written again on save.
+     */
+    public synchronized void markChanged() {
+        ensureLoaded();
+        markDirty();
+    }
+
+    /**
+     * Mark the entries as untrustworthy because a queued write whose lines they record failed
+     * Takes no lock, so it is safe from the writer's completion callbacks; the index is
+     * rebuilt from what actually reached the file on its next use.
+     */
+    public void invalidate() {
+        stale = true;
+    }
+
+    /**
+     * Replace the whole index after the data file was rewritten
+     */
+    public synchronized void replaceAll(Map<String, long[]> newEntries) {
+        entries.clear();
+        entries.putAll(newEntries);
+        loaded = true;
+        markDirty();
+    }
+
+    /**
+     * Load the index from its sidecar, rebuilding it if the sidecar is missing or stale
+     */
+    private void ensureLoaded() {
+        if (stale) {
+            stale = false;
+            rebuild();
+            return;
+        }
+        if (loaded) {
+            return;
+        }
+        if (!loadSidecar()) {
+            rebuild();
+        }
+        loaded = true;
+    }
+
+    /**
+     * Rebuild the index by scanning the data file
+     */
+    public synchronized void rebuild() {
+        GroupCommitWriter.of(filePath).flush();
+        entries.clear();
+        File file = new File(filePath);
+        if (file.exists()) {
+            try (MappedRecordReader reader = new MappedRecordReader(filePath)) {
+                // Only the ID field of each record is decoded
+                reader.forEach(record -> {
+                    String id = record.field(0);
+                    if (record.isTombstone()) {
+                        entries.remove(id);
+                    } else {
+                        entries.put(id, new long[] {record.offset(), record.length()});
+                    }
+                });
+            } catch (IOException e) {
+                System.err.println("Error indexing file " + filePath + ": " + e.getMessage());
+            }
+        }
+        loaded = true;
+        dirty = true;
+        saveIfDirty();
+    }
+
+    private boolean loadSidecar() {
+        File sidecar = new File(filePath + SIDECAR_SUFFIX);
+        File data = new File(filePath);
+        if (!sidecar.exists() || !data.exists()) {
+            return false;
+        }
+        try (BufferedReader reader = Files.newBufferedReader(sidecar.toPath(), StandardCharsets.UTF_8)) {
+            String header = reader.readLine();
+            if (header == null || !header.equals(headerFor(data))) {
+                return false;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                RecordTokenizer fields = RecordTokenizer.forLine(line);
+                if (fields.fieldCount() == 3) {
+                    entries.put(fields.field(0), new long[] {Long.parseLong(fields.field(1)), Long.parseLong(fields.field(2))});
+                }
+            }
+            return true;
+        } catch (IOException | NumberFormatException e) {
+            entries.clear();
+            return false;
+        }
+    }
+
+    private synchronized void saveIfDirty() {
+        if (!dirty) {
+            return;
+        }
+        // The header must describe the file with every queued append written
+        GroupCommitWriter.of(filePath).flush();
+        File data = new File(filePath);
+        if (!data.exists()) {
+            return;
+        }
+        // Replaced atomically, so a crash mid-save cannot leave a truncated sidecar with a valid header
+        try (AtomicFileWriter out = new AtomicFileWriter(filePath + SIDECAR_SUFFIX)) {
+            BufferedWriter writer = out.writer();
+            writer.write(headerFor(data));
+            writer.newLine();
+            for (Map.Entry<String, long[]> entry : entries.entrySet()) {
+                writer.write(entry.getKey() + "|" + entry.getValue()[0] + "|" + entry.getValue()[1]);
+                writer.newLine();
+            }
+            out.commit();
+            dirty = false;
+        } catch (IOException e) {
+            System.err.println("Error saving index for " + filePath + ": " + e.getMessage());
+        }
+    }
+
+    private void markDirty() {
+        if (!dirty) {
+            // The sidecar no longer matches; drop it so a crash forces a rebuild
+            new File(filePath + SIDECAR_SUFFIX).delete();
+            dirty = true;
+        }
+    }
+
+    private static String headerFor(File data) {
+        return HEADER_PREFIX + "|" + data.length() + "|" + data.lastModified();
+    }
+}
@@ -0,0 +1,151 @@
+package com.airbnb.storage;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.Function;
+
+/**
+ * Parallel loader for large data files
+ * The mapped file is split into byte ranges aligned to line boundaries and
+ * scanned on the common ForkJoinPool; the live versions are then decoded and parsed in
+ * parallel. Results are returned in file order, exactly as a sequential load would.
+ *
+ * Configuration (system properties):
+ *   airbnb.load.chunkBytes  byte range scanned by one task (default 1 MB);
+ *                           files smaller than this are loaded on the calling thread
+ */
+public class ParallelRecordLoader {
+
+    private static final long CHUNK_BYTES = Long.getLong("airbnb.load.chunkBytes", 1 << 20);
+    private static final int PARSE_BATCH = 4096;
+
+    /**
+     * Load and parse the live records of a mapped file
+     * Resolves versions and tombstones (last version wins) and updates the log's counters.
+     * Records the parser rejects (returns null for) are skipped.
+     */
+    public static <T> List<T> loadLive(MappedRecordReader reader, Function<String, T> parser, RecordLog log) {
+        // Phase 1: find every record's ID and position, chunk by chunk
+        // (invoke() runs small files on the calling thread; larger ranges fork into the common pool)
+        List<Position> positions = new ScanTask(reader, 0, reader.size()).invoke();
+
+        // Resolve versions in file order; records keep the position of their first version
+        Map<String, Position> live = new LinkedHashMap<>();
+        for (Position position : positions) {
+            if (position.tombstone) {
+                live.remove(position.id);
+            } else {
+                live.put(position.id, position);
+            }
+        }
+        log.setCounts(positions.size(), live.size());
+
+        // Phase 2: decode and parse only the live versions
+        Position[] toParse = live.values().toArray(new Position[0]);
+        Object[] parsed = new Object[toParse.length];
+        new ParseTask<>(reader, parser, toParse, parsed, 0, toParse.length).invoke();
+
+        List<T> records = new ArrayList<>(parsed.length);
+        for (Object record : parsed) {
+            if (record != null) {
+                @SuppressWarnings("unchecked")
+                T typed = (T) record;
+                records.add(typed);
+            }
+        }
+        return records;
+    }
+
+    /**
+     * ID and position of one record version
+     */
+    private static class Position {
+        final String id;
+        final long offset;
+        final long length;
+        final boolean tombstone;
+
+        Position(String id, long offset, long length, boolean tombstone) {
+            this.id = id;
+            this.offset = offset;
+            this.length = length;
+            this.tombstone = tombstone;
+        }
+    }
+
+    /**
+     * Scans the lines starting in [from, to), splitting at line boundaries while the range is large
+     */
+    @SuppressWarnings("serial") // never serialized; fork/join tasks are Serializable only by inheritance
+    private static class ScanTask extends RecursiveTask<List<Position>> {
+        private final MappedRecordReader reader;
+        private final long from;
+        private final long to;
+
+        ScanTask(MappedRecordReader reader, long from, long to) {
+            this.reader = reader;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<Position> compute() {
+            if (to - from > CHUNK_BYTES) {
+                long middle = reader.nextLineStart(from + (to - from) / 2);
+                if (middle > from && middle < to) {
+                    ScanTask left = new ScanTask(reader, from, middle);
+                    ScanTask right = new ScanTask(reader, middle, to);
+                    right.fork();
+                    List<Position> positions = left.compute();
+                    positions.addAll(right.join());
+                    return positions;
+                }
+            }
+            List<Position> positions = new ArrayList<>();
+            reader.forEach(from, to, record -> positions.add(new Position(
+                record.field(0), record.offset(), record.length(), record.isTombstone())));
+            return positions;
+        }
+    }
+
+    /**
+     * Decodes and parses positions [from, to) into the matching slots of the result array
+     */
+    @SuppressWarnings("serial") // never serialized; fork/join tasks are Serializable only by inheritance
+    private static class ParseTask<T> extends RecursiveAction {
+        private final MappedRecordReader reader;
+        private final Function<String, T> parser;
+        private final Position[] positions;
+        private final Object[] results;
+        private final int from;
+        private final int to;
+
+        ParseTask(MappedRecordReader reader, Function<String, T> parser,
+                  Position[] positions, Object[] results, int from, int to) {
+            this.reader = reader;
+            this.parser = parser;
+            this.positions = positions;
+            this.results = results;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > PARSE_BATCH) {
+                int middle = (from + to) >>> 1;
+                invokeAll(new ParseTask<>(reader, parser, positions, results, from, middle),
+                          new ParseTask<>(reader, parser, positions, results, middle, to));
+                return;
+            }
+            for (int i = from; i < to; i++) {
+                Position position = positions[i];
+                results[i] = parser.apply(reader.view(position.offset, position.length).line());
+            }
+        }
+    }
+}
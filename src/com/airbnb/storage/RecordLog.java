@@ -0,0 +1,152 @@
+package com.airbnb.storage;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bookkeeping for one append-only data file
+ * Updates and deletes are appended as new versions or tombstones; the last
+ * version of an ID in the file wins. Tracks dead records so the compactor
+ * knows when rewriting the file pays off.
+ * Instances also serve as the per-file write lock.
+ */
+public class RecordLog {
+
+    // Second field of a tombstone line: id|~deleted~
+    public static final String TOMBSTONE = "~deleted~";
+
+    private static final Map<String, RecordLog> LOGS = new ConcurrentHashMap<>();
+
+    private final String filePath;
+    private long totalRecords = 0;
+    private long deadRecords = 0;
+    private boolean tracked = false;
+
+    private RecordLog(String filePath) {
+        this.filePath = filePath;
+    }
+
+    /**
+     * Get the log for a data file
+     */
+    public static RecordLog of(String filePath) {
+        return LOGS.computeIfAbsent(filePath, RecordLog::new);
+    }
+
+    /**
+     * Get every log created so far
+     */
+    public static Collection<RecordLog> all() {
+        return LOGS.values();
+    }
+
+    public String getFilePath() {
+        return filePath;
+    }
+
+    /**
+     * Build the tombstone line for an ID
+     */
+    public static String tombstone(String id) {
+        return id + "|" + TOMBSTONE;
+    }
+
+    /**
+     * Check if a line is a tombstone
+     */
+    public static boolean isTombstone(String line) {
+        int sep = line.indexOf('|');
+        return sep >= 0 && line.length() - sep - 1 == TOMBSTONE.length()
+            && line.endsWith(TOMBSTONE);
+    }
+
+    /**
+     * Get the ID (first field) of a line
+     */
+    public static String idOf(String line) {
+        int sep = line.indexOf('|');
+        return sep < 0 ? line : line.substring(0, sep);
+    }
+
+    /**
+     * Resolve raw file lines to the live records (last version wins, tombstones remove)
+     * Records keep the position of their first version, like an in-place rewrite would.
+     * Also resets the live/dead counters for this file.
+     */
+    public synchronized List<String> resolve(List<String> lines) {
+        Map<String, String> live = new LinkedHashMap<>();
+        for (String line : lines) {
+            String id = idOf(line);
+            if (isTombstone(line)) {
+                live.remove(id);
+            } else {
+                live.put(id, line);
+            }
+        }
+        totalRecords = lines.size();
+        deadRecords = lines.size() - live.size();
+        tracked = true;
+        return new ArrayList<>(live.values());
+    }
+
+    /**
+     * Set the counters after the file was scanned
+     */
+    public synchronized void setCounts(long totalRecords, long liveRecords) {
+        this.totalRecords = totalRecords;
+        this.deadRecords = totalRecords - liveRecords;
+        this.tracked = true;
+    }
+    
+    /**
+     * A new record was appended
+     */
+    public synchronized void recordAppend() {
+        totalRecords++;
+    }
+
+    /**
+     * A new version of an existing record was appended
+     */
+    public synchronized void recordUpdate() {
+        totalRecords++;
+        deadRecords++;
+    }
+
+    /**
+     * A tombstone was appended (the old version and the tombstone are both dead)
+     */
+    public synchronized void recordDelete() {
+        totalRecords++;
+        deadRecords += 2;
+    }
+
+    /**
+     * The file was rewritten with only live records
+     */
+    public synchronized void reset(long liveRecords) {
+        totalRecords = liveRecords;
+        deadRecords = 0;
+        tracked = true;
+    }
+
+    /**
+     * Check if dead records have passed the compaction threshold
+     */
+    public synchronized boolean needsCompaction(double threshold, long minDeadRecords) {
+        return tracked && totalRecords > 0 && deadRecords >= minDeadRecords
+            && (double) deadRecords / totalRecords >= threshold;
+    }
+
+    public synchronized long getDeadRecords() {
+        return deadRecords;
+    }
+
+    public synchronized long getTotalRecords() {
+        return totalRecords;
+    }
+}
@@ -0,0 +1,328 @@
+package com.airbnb.utils;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Single-pass tokenizer for '|' separated data file records
+ * Finds field boundaries without regex or intermediate arrays, and parses
+ * numbers and ISO dates directly from the character ranges.
+ * Field counting matches String.split("\\|"): trailing empty fields are dropped
+ * unless a field limit is given.
+ *
+ * Instances are reusable; use {@link #forLine} for a per-thread instance.
+ */
+public class RecordTokenizer {
+
+    private static final char SEPARATOR = '|';
+
+    private static final ThreadLocal<RecordTokenizer> SHARED = ThreadLocal.withInitial(RecordTokenizer::new);
+
+    // Exact powers of ten for fast decimal parsing
+    private static final double[] POWERS_OF_TEN = {
+        1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+        1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private CharSequence line;
+    private int[] fieldEnds = new int[16];
+    private int fieldCount;
+
+    /**
+     * Tokenize a line with this thread's shared tokenizer
+     */
+    public static RecordTokenizer forLine(CharSequence line) {
+        return SHARED.get().reset(line);
+    }
+
+    /**
+     * Tokenize a line into at most {@code limit} fields with this thread's shared tokenizer
+     * The last field keeps the rest of the line, like String.split("\\|", limit).
+     */
+    public static RecordTokenizer forLine(CharSequence line, int limit) {
+        return SHARED.get().reset(line, limit);
+    }
+
+    /**
+     * Check if the first field of a line equals an ID, without tokenizing the rest
+     */
+    public static boolean idEquals(CharSequence line, String id) {
+        int length = id.length();
+        if (line.length() < length || (line.length() > length && line.charAt(length) != SEPARATOR)) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (line.charAt(i) != id.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Tokenize a line
+     */
+    public RecordTokenizer reset(CharSequence line) {
+        scan(line, Integer.MAX_VALUE);
+        // Drop trailing empty fields, as String.split does
+        while (fieldCount > 1 && fieldLength(fieldCount - 1) == 0) {
+            fieldCount--;
+        }
+        return this;
+    }
+
+    /**
+     * Tokenize a line into at most {@code limit} fields
+     */
+    public RecordTokenizer reset(CharSequence line, int limit) {
+        scan(line, limit);
+        return this;
+    }
+
+    private void scan(CharSequence line, int limit) {
+        this.line = line;
+        this.fieldCount = 0;
+        int length = line.length();
+        for (int i = 0; i < length && fieldCount < limit - 1; i++) {
+            if (line.charAt(i) == SEPARATOR) {
+                addFieldEnd(i);
+            }
+        }
+        addFieldEnd(length);
+    }
+
+    private void addFieldEnd(int end) {
+        if (fieldCount == fieldEnds.length) {
+            int[] grown = new int[fieldEnds.length * 2];
+            System.arraycopy(fieldEnds, 0, grown, 0, fieldEnds.length);
+            fieldEnds = grown;
+        }
+        fieldEnds[fieldCount++] = end;
+    }
+
+    /**
+     * Number of fields in the current line
+     */
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    private int fieldStart(int index) {
+        return index == 0 ? 0 : fieldEnds[index - 1] + 1;
+    }
+
+    private int fieldLength(int index) {
+        return fieldEnds[index] - fieldStart(index);
+    }
+
+    /**
+     * Get a field as a String
+     */
+    public String field(int index) {
+        return line.subSequence(fieldStart(index), fieldEnds[index]).toString();
+    }
+
+    /**
+     * Check if a field is empty
+     */
+    public boolean isEmpty(int index) {
+        return fieldLength(index) == 0;
+    }
+
+    /**
+     * Parse a field as an int, or return the default if it is not a valid int
+     */
+    public int parseInt(int index, int defaultValue) {
+        int start = fieldStart(index);
+        int end = fieldEnds[index];
+        if (start == end) {
+            return defaultValue;
+        }
+        boolean negative = false;
+        char first = line.charAt(start);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            start++;
+            if (start == end) {
+                return defaultValue;
+            }
+        }
+        long value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return defaultValue;
+            }
+            value = value * 10 + digit;
+            if (value > 1L + Integer.MAX_VALUE) {
+                return defaultValue;
+            }
+        }
+        value = negative ? -value : value;
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            return defaultValue;
+        }
+        return (int) value;
+    }
+
+    /**
+     * Parse a field as a double, or return the default if it is not a valid number
+     * Plain decimals like "120.0" are parsed in place; anything else falls back to Double.parseDouble.
+     */
+    public double parseDouble(int index, double defaultValue) {
+        int start = fieldStart(index);
+        int end = fieldEnds[index];
+        if (start == end) {
+            return defaultValue;
+        }
+        int i = start;
+        boolean negative = false;
+        if (line.charAt(i) == '-' || line.charAt(i) == '+') {
+            negative = line.charAt(i) == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            char c = line.charAt(i);
+            if (c >= '0' && c <= '9') {
+                mantissa = mantissa * 10 + (c - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else if (c == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else {
+                break;
+            }
+        }
+        // The division is exact-rounded while the mantissa fits in 53 bits
+        if (i == end && digits > 0 && digits <= 15 && fractionDigits < POWERS_OF_TEN.length) {
+            double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+            return negative ? -value : value;
+        }
+        try {
+            return Double.parseDouble(field(index));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parse a field as a boolean ("true" in any case is true)
+     */
+    public boolean parseBoolean(int index) {
+        int start = fieldStart(index);
+        if (fieldLength(index) != 4) {
+            return false;
+        }
+        return Character.toLowerCase(line.charAt(start)) == 't'
+            && Character.toLowerCase(line.charAt(start + 1)) == 'r'
+            && Character.toLowerCase(line.charAt(start + 2)) == 'u'
+            && Character.toLowerCase(line.charAt(start + 3)) == 'e';
+    }
+
+    /**
+     * Parse a field as an ISO date (yyyy-MM-dd), or return the default if it is not valid
+     */
+    public LocalDate parseDate(int index, LocalDate defaultValue) {
+        int start = fieldStart(index);
+        if (fieldLength(index) == 10) {
+            int year = digits(start, 4);
+            int month = digits(start + 5, 2);
+            int day = digits(start + 8, 2);
+            if (year >= 0 && month >= 0 && day >= 0
+                    && line.charAt(start + 4) == '-' && line.charAt(start + 7) == '-') {
+                try {
+                    return LocalDate.of(year, month, day);
+                } catch (RuntimeException e) {
+                    return defaultValue;
+                }
+            }
+        }
+        try {
+            return LocalDate.parse(field(index), DateTimeFormatter.ISO_LOCAL_DATE);
+        } catch (RuntimeException e) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Parse a field as an ISO date-time (yyyy-MM-ddTHH:mm[:ss[.fraction]]), or return the default
+     */
+    public LocalDateTime parseDateTime(int index, LocalDateTime defaultValue) {
+        int start = fieldStart(index);
+        int length = fieldLength(index);
+        if (length >= 16 && line.charAt(start + 10) == 'T') {
+            LocalDateTime parsed = parseDateTimeFast(start, length);
+            if (parsed != null) {
+                return parsed;
+            }
+        }
+        try {
+            return LocalDateTime.parse(field(index), DateTimeFormatter.ISO_LOCAL_DATE_TIME);
+        } catch (RuntimeException e) {
+            return defaultValue;
+        }
+    }
+
+    private LocalDateTime parseDateTimeFast(int start, int length) {
+        int year = digits(start, 4);
+        int month = digits(start + 5, 2);
+        int day = digits(start + 8, 2);
+        int hour = digits(start + 11, 2);
+        int minute = digits(start + 14, 2);
+        if (year < 0 || month < 0 || day < 0 || hour < 0 || minute < 0
+                || line.charAt(start + 4) != '-' || line.charAt(start + 7) != '-'
+                || line.charAt(start + 13) != ':') {
+            return null;
+        }
+        int second = 0;
+        int nanos = 0;
+        if (length > 16) {
+            if (length < 19 || line.charAt(start + 16) != ':') {
+                return null;
+            }
+            second = digits(start + 17, 2);
+            if (second < 0) {
+                return null;
+            }
+            if (length > 19) {
+                int fraction = length - 20;
+                if (line.charAt(start + 19) != '.' || fraction < 1 || fraction > 9) {
+                    return null;
+                }
+                nanos = digits(start + 20, fraction);
+                if (nanos < 0) {
+                    return null;
+                }
+                for (int i = fraction; i < 9; i++) {
+                    nanos *= 10;
+                }
+            }
+        }
+        try {
+            return LocalDateTime.of(year, month, day, hour, minute, second, nanos);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parse {@code count} decimal digits starting at {@code start}, or -1 if any is not a digit
+     */
+    private int digits(int start, int count) {
+        int value = 0;
+        for (int i = start; i < start + count; i++) {
+            int digit = line.charAt(i) - '0';
+            if (digit < 0 || digit > 9) {
+                return -1;
+            }
+            value = value * 10 + digit;
+        }
+        return value;
+    }
+}
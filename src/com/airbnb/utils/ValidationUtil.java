@@ -3,6 +3,7 @@ package com.airbnb.utils;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.time.format.DateTimeParseException;
+import java.time.temporal.ChronoUnit;
 import java.util.regex.Pattern;
 
 /**
@@ -10,6 +11,10 @@ import java.util.regex.Pattern;
  */
 public class ValidationUtil {
     
+    // Longest stay and how far ahead it may end; keeps every stay a bounded number of days
+    public static final int MAX_STAY_NIGHTS = 365;
+    public static final int MAX_YEARS_AHEAD = 2;
+    
     private static final Pattern EMAIL_PATTERN = Pattern.compile(
         "^[A-Za-z0-9+_.-]+@[A-Za-z0-9.-]+\\.[A-Za-z]{2,}$"
     );
@@ -76,5 +81,15 @@ public class ValidationUtil {
     public static boolean isValidDateRange(LocalDate checkIn, LocalDate checkOut) {
         return checkIn != null && checkOut != null && checkIn.isBefore(checkOut);
     }
+    
+    /**
+     * Check if a stay can be booked or searched: at least one night, at most
+     * MAX_STAY_NIGHTS, and checking out no more than MAX_YEARS_AHEAD years from today
+     */
+    public static boolean isValidStay(LocalDate checkIn, LocalDate checkOut) {
+        return isValidDateRange(checkIn, checkOut)
+            && ChronoUnit.DAYS.between(checkIn, checkOut) <= MAX_STAY_NIGHTS
+            && !checkOut.isAfter(LocalDate.now().plusYears(MAX_YEARS_AHEAD));
+    }
 }
 
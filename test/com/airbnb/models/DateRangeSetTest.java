@@ -0,0 +1,59 @@
+package com.airbnb.models;
+
+import org.junit.Test;
+
+import java.time.LocalDate;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Parsing of availableDates and the nights a stay needs
+ */
+public class DateRangeSetTest {
+
+    private static LocalDate day(String date) {
+        return LocalDate.parse(date);
+    }
+
+    @Test
+    public void emptyOrAllIsUnrestricted() {
+        assertTrue(DateRangeSet.parse(null).isUnrestricted());
+        assertTrue(DateRangeSet.parse(" ").isUnrestricted());
+        assertTrue(DateRangeSet.parse("ALL").isUnrestricted());
+        assertTrue(DateRangeSet.parse("not-a-date,also-not").isUnrestricted());
+    }
+
+    @Test
+    public void malformedPairIsDroppedWithoutShiftingLaterPairs() {
+        DateRangeSet set = DateRangeSet.parse("2026-01-01,2026-01-05,2026-02-30,2026-02-10,2026-03-01,2026-03-10");
+        assertEquals("2026-01-01,2026-01-05,2026-03-01,2026-03-10", set.toString());
+        assertTrue(set.contains(day("2026-03-02"), day("2026-03-09")));
+        assertFalse(set.contains(day("2026-02-01"), day("2026-02-05")));
+    }
+
+    @Test
+    public void unpairedLastDateIsASingleDay() {
+        DateRangeSet set = DateRangeSet.parse("2026-01-01,2026-01-03,2026-01-10");
+        assertEquals(2, set.size());
+        assertTrue(set.contains(day("2026-01-10"), day("2026-01-11")));
+        assertFalse(set.contains(day("2026-01-10"), day("2026-01-12")));
+    }
+
+    @Test
+    public void checkOutDayIsNotANight() {
+        DateRangeSet set = DateRangeSet.parse("2026-06-01,2026-06-10");
+        // Last open night is June 10, so checking out on June 11 is fine
+        assertTrue(set.contains(day("2026-06-05"), day("2026-06-11")));
+        assertFalse(set.contains(day("2026-06-05"), day("2026-06-12")));
+        assertFalse(set.contains(day("2026-05-31"), day("2026-06-03")));
+    }
+
+    @Test
+    public void adjacentRangesAreMerged() {
+        DateRangeSet set = DateRangeSet.parse("2026-06-11,2026-06-20,2026-06-01,2026-06-10");
+        assertEquals(1, set.size());
+        assertTrue(set.contains(day("2026-06-08"), day("2026-06-15")));
+    }
+}
@@ -0,0 +1,124 @@
+package com.airbnb.services;
+
+import com.airbnb.models.Booking;
+import com.airbnb.repository.Repositories;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * A booking status change is written in place; it must survive a restart,
+ * both after a clean exit and after the process is killed without shutdown hooks.
+ * Each step runs in its own JVM with the data directory in a temp folder.
+ */
+public class BookingRestartTest {
+
+    private static final String BOOKING_ID = "restart-booking";
+
+    private Path workDir;
+
+    @Before
+    public void setUp() throws IOException {
+        workDir = Files.createTempDirectory("airbnb-restart");
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(workDir)) {
+            paths.sorted(Comparator.reverseOrder()).map(Path::toFile).forEach(File::delete);
+        }
+    }
+
+    @Test
+    public void statusChangeSurvivesCleanRestart() throws Exception {
+        assertEquals("", run("create"));
+        assertEquals("", run("cancel"));
+        // The offset index sidecar was saved with a header matching the changed file
+        assertEquals("current", run("sidecar"));
+        assertEquals("CANCELLED", run("read"));
+    }
+
+    @Test
+    public void statusChangeSurvivesKilledProcess() throws Exception {
+        assertEquals("", run("create"));
+        assertEquals("", run("cancel-halt"));
+        assertEquals("CANCELLED", run("read"));
+    }
+
+    /**
+     * Run one step in a new JVM and return what it printed
+     */
+    private String run(String step) throws Exception {
+        List<String> command = new ArrayList<>();
+        command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+        // Same JVM options as this one (e.g. --enable-preview)
+        command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+        command.addAll(Arrays.asList("-Dairbnb.commit.durability=fsync",
+            "-cp", System.getProperty("java.class.path"), BookingRestartTest.class.getName(), step));
+        Process process = new ProcessBuilder(command)
+            .directory(workDir.toFile())
+            .redirectErrorStream(true)
+            .start();
+        String output = new String(process.getInputStream().readAllBytes(), StandardCharsets.UTF_8).trim();
+        assertEquals("step " + step + " failed: " + output, 0, process.waitFor());
+        return output;
+    }
+
+    /**
+     * Entry point of the child JVMs
+     */
+    public static void main(String[] args) throws Exception {
+        FileService.initializeDataDirectory();
+        switch (args[0]) {
+            case "create":
+                Booking booking = new Booking();
+                booking.setId(BOOKING_ID);
+                booking.setPropertyId("restart-property");
+                booking.setGuestId("restart-guest");
+                booking.setCheckIn(LocalDate.of(2030, 1, 10));
+                booking.setCheckOut(LocalDate.of(2030, 1, 12));
+                booking.setTotalPrice(200.0);
+                booking.setStatus("CONFIRMED");
+                Repositories.BOOKINGS.insert(booking);
+                break;
+            case "cancel":
+            case "cancel-halt":
+                Booking existing = BookingService.getBookingById(BOOKING_ID);
+                // Same length as CONFIRMED, so the record is overwritten in place
+                existing.setStatus("CANCELLED");
+                if (!BookingService.updateBooking(existing)) {
+                    throw new IllegalStateException("update failed");
+                }
+                if (args[0].equals("cancel-halt")) {
+                    // No shutdown hooks: nothing is flushed or saved after the update returned
+                    Runtime.getRuntime().halt(0);
+                }
+                break;
+            case "read":
+                System.out.print(BookingService.getBookingById(BOOKING_ID).getStatus());
+                break;
+            case "sidecar":
+                File data = new File(FileService.BOOKINGS_FILE);
+                String header = Files.readAllLines(new File(FileService.BOOKINGS_FILE + ".idx").toPath()).get(0);
+                System.out.print(header.equals("#idx|" + data.length() + "|" + data.lastModified()) ? "current" : header);
+                break;
+            default:
+                throw new IllegalArgumentException(args[0]);
+        }
+    }
+}